@@ -0,0 +1,70 @@
+package spellcheck.spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how long it takes to build a spell checker from a dictionary file
+ * and a corpus file, with and without the optional indexes.
+ * 
+ * @author James Woods
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConstructionBenchmark {
+
+	/** The number of words in the dictionary. */
+	@Param({ "10000", "100000" })
+	public int words;
+
+	/** Whether the spell checker keeps a symmetric delete index. */
+	@Param({ "false", "true" })
+	public boolean symmetricDelete;
+
+	/** Whether the dictionary is minimized. */
+	@Param({ "false", "true" })
+	public boolean minimized;
+
+	/** The dictionary file. */
+	private File dictionary;
+
+	/** The corpus file. */
+	private File corpus;
+
+	/**
+	 * Writes the dictionary and corpus files, if they are not already there.
+	 * 
+	 * @throws IOException
+	 *             if the files cannot be written
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		File[] files = SyntheticCorpus.files(words);
+		dictionary = files[0];
+		corpus = files[1];
+	}
+
+	/**
+	 * Builds a spell checker from the files.
+	 * 
+	 * @return the spell checker
+	 * @throws IOException
+	 *             if the files cannot be read
+	 */
+	@Benchmark
+	public Checker build() throws IOException {
+		return new Checker.Builder().dictionary(dictionary).corpus(corpus)
+				.symmetricDelete(symmetricDelete).minimized(minimized).build();
+	}
+}
@@ -0,0 +1,87 @@
+package spellcheck.spell;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link BitParallelDistance} with the dynamic programming
+ * {@link SymmetricDeleteIndex#distance(String, String)} when checking one
+ * pattern against many candidates, which is how suggestions are verified.
+ * 
+ * @author James Woods
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DistanceBenchmark {
+
+	/** The number of candidates checked against the pattern. */
+	private static final int CANDIDATES = 1000;
+
+	/** The length of the pattern and candidates. */
+	@Param({ "4", "8", "16", "32", "64" })
+	public int length;
+
+	/** The pattern. */
+	private String pattern;
+
+	/** The candidates, each a few edits away from the pattern. */
+	private String[] candidates;
+
+	/**
+	 * Creates a random pattern and candidates made by changing it.
+	 */
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		char[] letters = new char[length];
+		for (int i = 0; i < length; i++)
+			letters[i] = Utilities.LETTERS[random.nextInt(Utilities.LETTERS.length)];
+		pattern = new String(letters);
+
+		candidates = new String[CANDIDATES];
+		for (int i = 0; i < CANDIDATES; i++) {
+			char[] changed = letters.clone();
+			for (int j = 0; j < 2; j++)
+				changed[random.nextInt(length)] = Utilities.LETTERS[random
+						.nextInt(Utilities.LETTERS.length)];
+			candidates[i] = new String(changed);
+		}
+	}
+
+	/**
+	 * Checks every candidate with a table of rows.
+	 * 
+	 * @return the sum of the distances
+	 */
+	@Benchmark
+	public int dynamicProgramming() {
+		int sum = 0;
+		for (String candidate : candidates)
+			sum += SymmetricDeleteIndex.distance(pattern, candidate);
+		return sum;
+	}
+
+	/**
+	 * Checks every candidate with bit vectors.
+	 * 
+	 * @return the sum of the distances
+	 */
+	@Benchmark
+	public int bitParallel() {
+		BitParallelDistance distance = new BitParallelDistance(pattern);
+		int sum = 0;
+		for (String candidate : candidates)
+			sum += distance.distance(candidate);
+		return sum;
+	}
+}
@@ -0,0 +1,119 @@
+package spellcheck.spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link Checker#isWord(String)} and
+ * {@link Checker#getFrequency(String)} over text in which most tokens are
+ * correctly spelled and the rest are one edit away from a word.
+ * 
+ * @author James Woods
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IsWordBenchmark {
+
+	/** The number of words in the dictionary. */
+	private static final int WORDS = 100000;
+
+	/** The number of tokens in the text. */
+	private static final int TOKENS = 10000;
+
+	/** Whether the dictionary is minimized. */
+	@Param({ "false", "true" })
+	public boolean minimized;
+
+	/** The percentage of tokens which are misspelled. */
+	@Param({ "5", "50" })
+	public int misspelled;
+
+	/** The spell checker. */
+	private Checker checker;
+
+	/** The text to check. */
+	private String[] text;
+
+	/**
+	 * The correctly spelled tokens of the text, since
+	 * {@link Checker#getFrequency(String)} only accepts words.
+	 */
+	private String[] correct;
+
+	/**
+	 * Builds the spell checker from a synthetic dictionary and corpus and
+	 * makes text from its words.
+	 * 
+	 * @throws IOException
+	 *             if the dictionary cannot be written
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		File[] files = SyntheticCorpus.files(WORDS);
+		checker = new Checker.Builder().dictionary(files[0]).corpus(files[1])
+				.minimized(minimized).build();
+
+		SyntheticCorpus generator = new SyntheticCorpus(SyntheticCorpus.SEED);
+		String[] words = generator.words(WORDS);
+		Random random = new Random(SyntheticCorpus.SEED);
+		text = new String[TOKENS];
+		int count = 0;
+		for (int i = 0; i < TOKENS; i++) {
+			String word = words[random.nextInt(words.length)];
+			if (random.nextInt(100) < misspelled)
+				word = generator.misspell(word);
+			text[i] = word;
+			if (checker.isWord(word))
+				count++;
+		}
+
+		// A misspelling may happen to be another word, so the correct tokens
+		// are the ones the spell checker accepts.
+		correct = new String[count];
+		count = 0;
+		for (String token : text) {
+			if (checker.isWord(token))
+				correct[count++] = token;
+		}
+	}
+
+	/**
+	 * Checks every token of the text.
+	 * 
+	 * @return the number of correctly spelled tokens
+	 */
+	@Benchmark
+	public int checkText() {
+		int correct = 0;
+		for (String token : text) {
+			if (checker.isWord(token))
+				correct++;
+		}
+		return correct;
+	}
+
+	/**
+	 * Looks up the frequency of every correctly spelled token of the text.
+	 * 
+	 * @return the sum of the frequencies
+	 */
+	@Benchmark
+	public long frequencies() {
+		long total = 0;
+		for (String token : correct)
+			total += checker.getFrequency(token);
+		return total;
+	}
+}
@@ -0,0 +1,89 @@
+package spellcheck.spell;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the sorters on suggestion lists of the sizes the spell checker
+ * produces, ordered by {@link SpellingComparator}, and the choice
+ * {@link SpellingDictionary#sorter(int)} makes between them.
+ * 
+ * @author James Woods
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortBenchmark {
+
+	/** The number of suggestions to sort. */
+	@Param({ "10", "32", "64", "128", "1000", "10000", "500000" })
+	public int size;
+
+	/**
+	 * The sorter: heap for {@link HeapSorter}, merge for {@link MergeSorter},
+	 * radix for {@link SuggestionSorter}, parallel for a
+	 * {@link ParallelSorter} of suggestion sorters, or chosen for the one
+	 * chosen by {@link SpellingDictionary#sorter(int)}.
+	 */
+	@Param({ "heap", "merge", "radix", "parallel", "chosen" })
+	public String algorithm;
+
+	/** The suggestions, in the order they were found. */
+	private Suggestion[] suggestions;
+
+	/** The copy that is sorted. */
+	private Suggestion[] array;
+
+	/** The sorter. */
+	private Sorter<Suggestion> sorter;
+
+	/**
+	 * Makes suggestions with random distances and Zipf-like frequencies.
+	 */
+	@Setup
+	public void setUp() {
+		SyntheticCorpus generator = new SyntheticCorpus(SyntheticCorpus.SEED);
+		String[] words = generator.words(size);
+		Random random = new Random(SyntheticCorpus.SEED);
+		suggestions = new Suggestion[size];
+		for (int i = 0; i < size; i++)
+			suggestions[i] = new Suggestion(words[i], random.nextInt(3),
+					1000 / (1 + random.nextInt(1000)));
+		array = new Suggestion[size];
+		if (algorithm.equals("heap"))
+			sorter = new HeapSorter<Suggestion>(new SpellingComparator());
+		else if (algorithm.equals("merge"))
+			sorter = new MergeSorter<Suggestion>(new SpellingComparator());
+		else if (algorithm.equals("radix"))
+			sorter = new SuggestionSorter();
+		else if (algorithm.equals("parallel"))
+			sorter = new ParallelSorter<Suggestion>(new SuggestionSorter(),
+					ForkJoinPool.commonPool());
+		else
+			sorter = SpellingDictionary.sorter(size);
+	}
+
+	/**
+	 * Sorts a copy of the suggestions. Copying is part of the measurement,
+	 * since a setup method run for every invocation would cost more than
+	 * sorting a short list.
+	 * 
+	 * @return the sorted suggestions
+	 */
+	@Benchmark
+	public Suggestion[] sort() {
+		System.arraycopy(suggestions, 0, array, 0, size);
+		sorter.sort(array);
+		return array;
+	}
+}
@@ -0,0 +1,81 @@
+package spellcheck.spell;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link Checker#getSuggestions(String, int)} for misspellings like
+ * those people make when typing, at several dictionary sizes and with each way
+ * of finding candidates.
+ * 
+ * @author James Woods
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SuggestionBenchmark {
+
+	/** The number of misspellings looked up in each invocation. */
+	private static final int QUERIES = 100;
+
+	/** The number of suggestions asked for. */
+	private static final int SUGGESTIONS = 10;
+
+	/** The number of words in the dictionary. */
+	@Param({ "10000", "100000" })
+	public int words;
+
+	/** Whether the spell checker keeps a symmetric delete index. */
+	@Param({ "false", "true" })
+	public boolean symmetricDelete;
+
+	/** Whether the dictionary is minimized. */
+	@Param({ "false", "true" })
+	public boolean minimized;
+
+	/** The spell checker. */
+	private Checker checker;
+
+	/** The misspellings to look up. */
+	private String[] misspellings;
+
+	/**
+	 * Builds the spell checker and makes the misspellings.
+	 * 
+	 * @throws IOException
+	 *             if the files cannot be written
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		File[] files = SyntheticCorpus.files(words);
+		checker = new Checker.Builder().dictionary(files[0]).corpus(files[1])
+				.symmetricDelete(symmetricDelete).minimized(minimized).build();
+		SyntheticCorpus generator = new SyntheticCorpus(SyntheticCorpus.SEED);
+		misspellings = generator.misspellings(generator.words(words), QUERIES);
+	}
+
+	/**
+	 * Looks up suggestions for every misspelling.
+	 * 
+	 * @return the number of suggestions found
+	 */
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public int suggest() {
+		int found = 0;
+		for (String misspelling : misspellings)
+			found += checker.getSuggestions(misspelling, SUGGESTIONS).length;
+		return found;
+	}
+}
@@ -0,0 +1,342 @@
+package spellcheck.spell;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * A synthetic corpus makes dictionaries, corpora and misspellings for the
+ * benchmarks, so that they can be run anywhere without downloading word
+ * lists. Everything is made from a seeded random number generator, so the
+ * same seed always gives the same files and the numbers of two runs can be
+ * compared.
+ * 
+ * Words are built from syllables, so that like real words they share
+ * prefixes and endings, and word frequencies in the corpus follow Zipf's law,
+ * with a few words making up most of the text.
+ * 
+ * @author James Woods
+ */
+public class SyntheticCorpus {
+
+	/** The seed used by the benchmarks. */
+	public static final long SEED = 20131105L;
+
+	/** The number of corpus tokens made for each dictionary word. */
+	public static final int TOKENS_PER_WORD = 10;
+
+	/** The percentage of corpus tokens which are not dictionary words. */
+	private static final int NOISE = 3;
+
+	/** The consonants words start syllables with. */
+	private static final String[] ONSETS = { "", "b", "c", "d", "f", "g",
+			"h", "j", "k", "l", "m", "n", "p", "r", "s", "t", "v", "w", "y",
+			"z", "bl", "br", "ch", "cl", "cr", "dr", "fl", "fr", "gr", "pl",
+			"pr", "sh", "sl", "sp", "st", "str", "th", "tr", "wh" };
+
+	/** The vowels in the middle of syllables. */
+	private static final String[] NUCLEI = { "a", "e", "i", "o", "u", "ai",
+			"ea", "ee", "ie", "oo", "ou", "y" };
+
+	/** The consonants words end syllables with. */
+	private static final String[] CODAS = { "", "", "", "b", "ck", "d", "g",
+			"l", "m", "n", "nd", "ng", "nt", "p", "r", "s", "st", "t", "x" };
+
+	/** The endings added to some words. */
+	private static final String[] SUFFIXES = { "", "", "", "", "s", "ed",
+			"ing", "er", "ly", "tion", "ness", "able" };
+
+	/** The source of randomness. */
+	private final Random random;
+
+	/**
+	 * Creates a generator.
+	 * 
+	 * @param seed
+	 *            the seed of the random number generator
+	 */
+	public SyntheticCorpus(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Makes a list of distinct upper case words in alphabetical order, as a
+	 * dictionary file would have them.
+	 * 
+	 * @param count
+	 *            the number of words
+	 * @return the words
+	 */
+	public String[] words(int count) {
+		HashSet<String> words = new HashSet<String>();
+		while (words.size() < count)
+			words.add(word());
+		String[] sorted = words.toArray(new String[count]);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	/**
+	 * Writes words to a dictionary file, one per line.
+	 * 
+	 * @param file
+	 *            the file to write
+	 * @param words
+	 *            the words
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void writeDictionary(File file, String[] words) throws IOException {
+		Writer writer = open(file);
+		try {
+			for (String word : words) {
+				writer.write(word.toLowerCase());
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Writes a corpus file of sentences made from dictionary words, whose
+	 * frequencies follow Zipf's law, with a few tokens which are not words.
+	 * 
+	 * @param file
+	 *            the file to write
+	 * @param words
+	 *            the dictionary words
+	 * @param tokens
+	 *            the number of tokens to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void writeCorpus(File file, String[] words, int tokens)
+			throws IOException {
+		// Give the words their ranks in a random order, so common words are
+		// spread over the alphabet.
+		ArrayList<String> ranked = new ArrayList<String>(Arrays.asList(words));
+		Collections.shuffle(ranked, random);
+		double[] cumulative = zipf(ranked.size());
+
+		Writer writer = open(file);
+		try {
+			for (int i = 0; i < tokens; i++) {
+				String token;
+				if (random.nextInt(100) < NOISE)
+					token = word();
+				else
+					token = ranked.get(sample(cumulative));
+				writer.write(token.toLowerCase());
+				writer.write(i % 12 == 11 ? ".\n" : " ");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Makes the kind of mistakes people make when typing words: each word
+	 * gets one letter inserted, deleted, changed or swapped with the next.
+	 * 
+	 * @param words
+	 *            the words to draw from
+	 * @param count
+	 *            the number of misspellings
+	 * @return the misspellings, some of which may happen to be words
+	 */
+	public String[] misspellings(String[] words, int count) {
+		String[] misspellings = new String[count];
+		for (int i = 0; i < count; i++)
+			misspellings[i] = misspell(words[random.nextInt(words.length)]);
+		return misspellings;
+	}
+
+	/**
+	 * Makes a misspelling of a word with one insertion, deletion,
+	 * substitution or transposition.
+	 * 
+	 * @param word
+	 *            the word
+	 * @return the misspelling
+	 */
+	public String misspell(String word) {
+		StringBuilder builder = new StringBuilder(word);
+		int position = random.nextInt(word.length());
+		char letter = Utilities.LETTERS[random.nextInt(Utilities.LETTERS.length)];
+		switch (random.nextInt(4)) {
+		case 0:
+			builder.insert(position, letter);
+			break;
+		case 1:
+			if (builder.length() > 1) {
+				builder.deleteCharAt(position);
+				break;
+			}
+			// Fall through, so no word becomes empty.
+		case 2:
+			builder.setCharAt(position, letter);
+			break;
+		default:
+			if (position + 1 < builder.length()) {
+				builder.setCharAt(position, word.charAt(position + 1));
+				builder.setCharAt(position + 1, word.charAt(position));
+			} else {
+				builder.setCharAt(position, letter);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns a dictionary file and a corpus file of the given size, made
+	 * with {@link #SEED}. The files are kept in the temporary directory and
+	 * only made the first time they are asked for.
+	 * 
+	 * @param words
+	 *            the number of dictionary words
+	 * @return the dictionary file and the corpus file
+	 * @throws IOException
+	 *             if the files cannot be written
+	 */
+	public static synchronized File[] files(int words) throws IOException {
+		File directory = new File(System.getProperty("java.io.tmpdir"),
+				"vautexedit-" + SEED + "-" + words);
+		File dictionary = new File(directory, "dictionary.txt");
+		File corpus = new File(directory, "corpus.txt");
+		if (!dictionary.exists() || !corpus.exists()) {
+			if (!directory.isDirectory() && !directory.mkdirs())
+				throw new IOException("Cannot create " + directory + ".");
+			write(directory, words, words * TOKENS_PER_WORD);
+		}
+		return new File[] { dictionary, corpus };
+	}
+
+	/**
+	 * Writes a dictionary file and a corpus file to a directory.
+	 * 
+	 * @param directory
+	 *            the directory
+	 * @param words
+	 *            the number of dictionary words
+	 * @param tokens
+	 *            the number of corpus tokens
+	 * @throws IOException
+	 *             if the files cannot be written
+	 */
+	public static void write(File directory, int words, int tokens)
+			throws IOException {
+		SyntheticCorpus generator = new SyntheticCorpus(SEED);
+		String[] dictionary = generator.words(words);
+		generator.writeDictionary(new File(directory, "dictionary.txt"),
+				dictionary);
+		generator.writeCorpus(new File(directory, "corpus.txt"), dictionary,
+				tokens);
+	}
+
+	/**
+	 * Writes a dictionary file and a corpus file, so the benchmark data can
+	 * also be used elsewhere.
+	 * 
+	 * @param args
+	 *            the directory to write to, the number of dictionary words and
+	 *            optionally the number of corpus tokens
+	 * @throws IOException
+	 *             if the files cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: SyntheticCorpus directory words [tokens]");
+			System.exit(1);
+		}
+		int words = Integer.parseInt(args[1]);
+		int tokens = args.length > 2 ? Integer.parseInt(args[2]) : words
+				* TOKENS_PER_WORD;
+		write(new File(args[0]), words, tokens);
+	}
+
+	/**
+	 * word is a private helper method that makes a random word of one to four
+	 * syllables, sometimes with a suffix.
+	 * 
+	 * @return the word, in upper case.
+	 */
+	private String word() {
+		StringBuilder word = new StringBuilder();
+		int syllables = 1 + random.nextInt(3) + (random.nextInt(4) == 0 ? 1 : 0);
+		for (int i = 0; i < syllables; i++) {
+			word.append(pick(ONSETS));
+			word.append(pick(NUCLEI));
+			word.append(pick(CODAS));
+		}
+		word.append(pick(SUFFIXES));
+		return word.toString().toUpperCase();
+	}
+
+	/**
+	 * pick is a private helper method that picks one string at random.
+	 * 
+	 * @param strings
+	 *            the strings to pick from.
+	 * @return the string picked.
+	 */
+	private String pick(String[] strings) {
+		return strings[random.nextInt(strings.length)];
+	}
+
+	/**
+	 * zipf is a private helper method that works out the cumulative
+	 * probabilities of each rank under Zipf's law.
+	 * 
+	 * @param count
+	 *            the number of ranks.
+	 * @return the probability of each rank or any rank before it.
+	 */
+	private static double[] zipf(int count) {
+		double[] cumulative = new double[count];
+		double total = 0;
+		for (int i = 0; i < count; i++) {
+			total += 1.0 / (i + 1);
+			cumulative[i] = total;
+		}
+		for (int i = 0; i < count; i++)
+			cumulative[i] /= total;
+		return cumulative;
+	}
+
+	/**
+	 * sample is a private helper method that picks a rank at random.
+	 * 
+	 * @param cumulative
+	 *            the cumulative probabilities of the ranks.
+	 * @return the rank picked.
+	 */
+	private int sample(double[] cumulative) {
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		if (index < 0)
+			index = -index - 1;
+		return Math.min(index, cumulative.length - 1);
+	}
+
+	/**
+	 * open is a private helper method that opens a file for writing text.
+	 * 
+	 * @param file
+	 *            the file.
+	 * @return the writer.
+	 * @throws IOException
+	 *             if the file cannot be opened.
+	 */
+	private static Writer open(File file) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+				file), "US-ASCII"));
+	}
+}
@@ -0,0 +1,91 @@
+package spellcheck.spell;
+
+/**
+ * A bit-parallel distance finds the Levenshtein distance between one upper
+ * case pattern of up to {@link #MAX_LENGTH} letters and any number of other
+ * strings, using Myers' algorithm. A whole column of the Levenshtein table is
+ * held as the differences between neighbouring cells, one bit per letter of
+ * the pattern in two <code>long</code>s, so each letter of the other string
+ * takes a handful of word operations instead of a loop over the pattern.
+ * 
+ * The bit masks of the pattern are worked out once, so a pattern is meant to
+ * be checked against many candidates.
+ * 
+ * @author James Woods
+ */
+final class BitParallelDistance {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The longest pattern that fits in the bits of a long. */
+	public static final int MAX_LENGTH = Long.SIZE;
+
+	/** The positions of each letter in the pattern, one bit per position. */
+	private final long[] masks = new long[Utilities.LETTERS.length];
+
+	/** The bit of the last letter of the pattern. */
+	private final long last;
+
+	/** The length of the pattern. */
+	private final int length;
+
+	/**
+	 * Creates a distance for a pattern.
+	 * 
+	 * @param pattern
+	 *            the upper case pattern
+	 * @throws IllegalArgumentException
+	 *             if the pattern is longer than {@link #MAX_LENGTH} or
+	 *             contains a character which is not a letter
+	 */
+	public BitParallelDistance(String pattern) {
+		if (pattern.length() > MAX_LENGTH)
+			throw new IllegalArgumentException("The pattern is longer than "
+					+ MAX_LENGTH + " letters.");
+		for (int i = 0; i < pattern.length(); i++)
+			masks[Utilities.indexOf(pattern.charAt(i))] |= 1L << i;
+		this.length = pattern.length();
+		this.last = length == 0 ? 0 : 1L << (length - ONE);
+	}
+
+	/**
+	 * Returns the Levenshtein distance between the pattern and a string.
+	 * 
+	 * @param string
+	 *            the upper case string
+	 * @return the minimum number of insertions, deletions and substitutions
+	 *         needed to turn the pattern into the string
+	 */
+	public int distance(String string) {
+		if (length == 0)
+			return string.length();
+
+		// The vertical differences of the first column are all +1.
+		long positive = -1L;
+		long negative = 0;
+		int score = length;
+		for (int i = 0; i < string.length(); i++) {
+			int letter = string.charAt(i) - Utilities.LETTERS[0];
+			long equal = letter >= 0 && letter < masks.length ? masks[letter]
+					: 0;
+			long vertical = equal | negative;
+			long horizontal = (((equal & positive) + positive) ^ positive)
+					| equal;
+			long up = negative | ~(horizontal | positive);
+			long down = positive & horizontal;
+			if ((up & last) != 0)
+				score++;
+			else if ((down & last) != 0)
+				score--;
+			// The top row grows by one for every letter of the string.
+			up = (up << ONE) | ONE;
+			down <<= ONE;
+			positive = down | ~(vertical | up);
+			negative = up & vertical;
+		}
+		return score;
+	}
+}
@@ -0,0 +1,295 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+
+/**
+ * A candidate collector records the words a search finds by id, each with the
+ * smallest edit distance it was found at. Ids are kept in an open addressing
+ * table of primitive arrays, so finding out whether a word has already been
+ * collected takes constant time and creates no objects, and the table grows
+ * as needed however many words are found. Strings and frequencies are only
+ * looked up once the search is over, for the candidates that are still in
+ * contention.
+ * 
+ * The collector also counts its candidates at each distance, so that a search
+ * for the best k words can stop looking further away than it needs to.
+ * 
+ * @author James Woods
+ */
+final class CandidateCollector {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The number of candidates room is made for at first. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The value of a slot with no candidate in it. */
+	private static final int EMPTY = -1;
+
+	/** The largest edit distance a candidate may have. */
+	private int maxDistance;
+
+	/** The number of candidates wanted. */
+	private int wanted;
+
+	/** The number of candidates at each distance. */
+	private int[] tiers;
+
+	/** The largest edit distance worth collecting, see {@link #limit()}. */
+	private int limit;
+
+	/** The id of each candidate, in the order they were collected. */
+	private int[] ids;
+
+	/** The distance of each candidate, in the order they were collected. */
+	private int[] distances;
+
+	/** The number of candidates collected. */
+	private int size;
+
+	/** The position of a candidate in ids for each slot, or EMPTY. */
+	private int[] slots;
+
+	/** The number of words offered, counting duplicates. */
+	private int generated;
+
+	/**
+	 * Creates an empty collector.
+	 * 
+	 * @param maxDistance
+	 *            the largest edit distance a candidate may have
+	 * @param wanted
+	 *            the number of candidates that will be returned in the end
+	 */
+	public CandidateCollector(int maxDistance, int wanted) {
+		ids = new int[INITIAL_CAPACITY];
+		distances = new int[INITIAL_CAPACITY];
+		slots = new int[INITIAL_CAPACITY * 2];
+		tiers = new int[maxDistance + ONE];
+		reset(maxDistance, wanted);
+	}
+
+	/**
+	 * Empties the collector so it can be used for another search, keeping
+	 * the room it has already made.
+	 * 
+	 * @param maxDistance
+	 *            the largest edit distance a candidate may have
+	 * @param wanted
+	 *            the number of candidates that will be returned in the end
+	 */
+	public void reset(int maxDistance, int wanted) {
+		this.maxDistance = maxDistance;
+		this.wanted = wanted;
+		this.limit = maxDistance;
+		if (tiers.length <= maxDistance)
+			tiers = new int[maxDistance + ONE];
+		else
+			Arrays.fill(tiers, 0);
+		Arrays.fill(slots, EMPTY);
+		size = 0;
+		generated = 0;
+	}
+
+	/**
+	 * Returns the largest edit distance a candidate can have and still be
+	 * among the best. Once the wanted number of candidates have been
+	 * collected at some distance or closer, nothing further away than that
+	 * distance can be.
+	 * 
+	 * @return the largest edit distance worth collecting
+	 */
+	public int limit() {
+		return limit;
+	}
+
+	/**
+	 * Checks whether a word has already been collected.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @return true if the word has been collected
+	 */
+	public boolean contains(int id) {
+		return slots[find(id)] != EMPTY;
+	}
+
+	/**
+	 * Collects a word. If it has been collected before, only the smaller of
+	 * the two distances is kept.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @param distance
+	 *            the edit distance of the word
+	 */
+	public void add(int id, int distance) {
+		generated++;
+		int slot = find(id);
+		int index = slots[slot];
+		if (index != EMPTY) {
+			int old = distances[index];
+			if (distance >= old)
+				return;
+			distances[index] = distance;
+			count(old, -ONE);
+			count(distance, ONE);
+			return;
+		}
+
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+			distances = Arrays.copyOf(distances, size * 2);
+			rehash(slots.length * 2);
+			slot = find(id);
+		}
+		ids[size] = id;
+		distances[size] = distance;
+		slots[slot] = size++;
+		count(distance, ONE);
+	}
+
+	/**
+	 * Collects every candidate of another collector, keeping the smaller
+	 * distance of any word both have collected.
+	 * 
+	 * @param other
+	 *            the other collector
+	 */
+	public void addAll(CandidateCollector other) {
+		for (int i = 0; i < other.size; i++)
+			add(other.ids[i], other.distances[i]);
+		// The words the other collector threw away were generated too, and
+		// the ones it kept have just been counted again.
+		generated += other.generated - other.size;
+	}
+
+	/**
+	 * Counts a word a search has found again after collecting it, without
+	 * collecting it a second time.
+	 */
+	public void countDuplicate() {
+		generated++;
+	}
+
+	/**
+	 * Returns the number of words offered to the collector since it was
+	 * reset, including those offered more than once.
+	 * 
+	 * @return the number of words generated
+	 */
+	public int generated() {
+		return generated;
+	}
+
+	/**
+	 * Returns the number of words offered to the collector which had already
+	 * been collected.
+	 * 
+	 * @return the number of duplicates
+	 */
+	public int duplicates() {
+		return generated - size;
+	}
+
+	/**
+	 * Returns the number of candidates collected.
+	 * 
+	 * @return the number of candidates
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the id of a candidate.
+	 * 
+	 * @param index
+	 *            the position of the candidate, in the order collected
+	 * @return the id of the candidate
+	 */
+	public int id(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * Returns the distance of a candidate.
+	 * 
+	 * @param index
+	 *            the position of the candidate, in the order collected
+	 * @return the edit distance of the candidate
+	 */
+	public int distance(int index) {
+		return distances[index];
+	}
+
+	/**
+	 * count is a private helper method that changes the number of candidates
+	 * at a distance and works out the new limit.
+	 * 
+	 * @param distance
+	 *            the distance
+	 * @param amount
+	 *            the amount to change the count by
+	 */
+	private void count(int distance, int amount) {
+		if (distance > maxDistance)
+			return;
+		tiers[distance] += amount;
+		int total = 0;
+		limit = maxDistance;
+		for (int i = 0; i < maxDistance; i++) {
+			total += tiers[i];
+			if (total >= wanted) {
+				limit = i;
+				break;
+			}
+		}
+	}
+
+	/**
+	 * find is a private helper method that returns the slot an id is in, or
+	 * the empty slot where it belongs.
+	 * 
+	 * @param id
+	 *            the id to look for
+	 * @return the slot
+	 */
+	private int find(int id) {
+		int mask = slots.length - ONE;
+		int slot = hash(id) & mask;
+		while (slots[slot] != EMPTY && ids[slots[slot]] != id)
+			slot = (slot + ONE) & mask;
+		return slot;
+	}
+
+	/**
+	 * hash is a private helper method that spreads the bits of a word id so
+	 * that consecutive ids do not fill consecutive slots.
+	 * 
+	 * @param id
+	 *            the word id.
+	 * @return the hash of the id.
+	 */
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * rehash is a private helper method that rebuilds the table of slots with
+	 * a new number of slots.
+	 * 
+	 * @param capacity
+	 *            the new number of slots, which must be a power of two
+	 */
+	private void rehash(int capacity) {
+		slots = new int[capacity];
+		Arrays.fill(slots, EMPTY);
+		for (int i = 0; i < size; i++)
+			slots[find(ids[i])] = i;
+	}
+}
@@ -1,10 +1,13 @@
 package spellcheck.spell;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.Comparator;
-import java.util.Scanner;
-
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A spell checker maintains a dictionary of words that are read in from a text
@@ -14,42 +17,61 @@ import java.util.Scanner;
  * a list of suggested spelling corrections. The corrections are ranked in order
  * their relevance.
  * 
+ * A spell checker should not be read by one thread while another changes it.
+ * To share a dictionary between threads, give each reader a
+ * {@link #snapshot()}, which never changes, and keep the spell checker for
+ * changes only.
+ * 
+ * The work a spell checker and its snapshots do is counted in its
+ * {@link #getMetrics() metrics}.
+ * 
  * @author James Woods
  */
-public class Checker {
+public class Checker extends SpellingDictionary {
 
 	/**
 	 * ONE is used to represent the number one.
 	 */
 	private static final int ONE = 1;
 
+	/** The prefix tree used to maintain the dictionary. */
+	private Trie trie = new CompactTrie();
+
 	/**
-	 * When searching for suggestions, the spell checker will only consider
-	 * words which are this far away from the given string in terms of
-	 * Levenshtein distance.
+	 * deletes is the symmetric delete index used to find suggestions, or null
+	 * if suggestions are found by searching the prefix tree.
 	 */
-	public static final int MAX_EDIT_DISTANCE = 2;
+	private SymmetricDeleteIndex deletes;
 
 	/**
-	 * index is used to track the size of the array of suggestions
+	 * pool is the pool which counts the corpus in parallel and runs the
+	 * lookups of batches, shared by the snapshots of this spell checker.
 	 */
-	private int index;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
 
-	/** The root node of the prefix tree used to maintain the dictionary. */
-	private Node root = new Node(this);
+	/**
+	 * published is the snapshot returned by {@link #snapshot()}, which is
+	 * replaced by every change.
+	 */
+	private volatile DictionarySnapshot published;
 
 	/**
-	 * Used to track how much work is done during various dictionary operations,
-	 * where work is measured by the number of nodes visited. YOU MAY NEVER
-	 * CHANGE THE VALUE OF THIS VARIABLE.
+	 * publishedCompletions is the completion index given to the published
+	 * snapshot, or null if it was not given one.
 	 */
-	int nodesVisited = 0;
+	private CompletionIndex publishedCompletions;
+
+	/**
+	 * modifications is the number of times the dictionary has been changed
+	 * since it was loaded.
+	 */
+	private volatile long modifications;
 
 	/**
 	 * Creates a spell checker with no words in the dictionary.
 	 */
 	public Checker() {
-		index = 0;
+		publish(true, false);
 	}
 
 	/**
@@ -67,346 +89,462 @@ public class Checker {
 	 *            be derived
 	 * @throws FileNotFoundException
 	 *             if either file is not found
+	 * @throws IllegalStateException
+	 *             if either file cannot be read
 	 */
 	public Checker(File dictionary, File corpus) throws FileNotFoundException {
 
-		index = 0;
-		// Open a scanner for the dictionary.
-		Scanner dictionScan = new Scanner(dictionary);
-		// Scan each line of the dictionary.
-		while (dictionScan.hasNext()) {
-			// Open a scanner for the line.
-			String lineToInsert = dictionScan.nextLine();
-			Scanner lineScan = new Scanner(lineToInsert);
-			// scan each word of the line.
-			while (lineScan.hasNext()) {
-				String wordToInsert = Utilities.sanitize(lineScan.next());
-				// Insert each word into the prefix-tree structure.
-				addWord(wordToInsert);
+		try {
+			loadFiles(dictionary, corpus, ONE);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		publish(true, false);
+	}
+
+	/**
+	 * loadFiles is a private helper method that reads a dictionary file and a
+	 * corpus file, and records how long it took and how much work it was in
+	 * the metrics and, if a flight recording is running, a
+	 * {@link DictionaryLoadEvent}.
+	 * 
+	 * @param dictionary
+	 *            a file of words which are correctly spelled, or null
+	 * @param corpus
+	 *            a file of common literature from which frequency counts will
+	 *            be derived, or null
+	 * @param parallelism
+	 *            the number of threads to count the corpus with
+	 * @throws IOException
+	 *             if a file is not found or cannot be read
+	 */
+	private void loadFiles(File dictionary, File corpus, int parallelism)
+			throws IOException {
+		long start = System.nanoTime();
+		DictionaryLoadEvent event = new DictionaryLoadEvent();
+		event.begin();
+		if (dictionary != null) {
+			event.dictionary = dictionary.getPath();
+			loadDictionary(dictionary, event);
+		}
+		if (corpus != null) {
+			event.corpus = corpus.getPath();
+			countCorpus(corpus, parallelism, event);
+		}
+		metrics.load(System.nanoTime() - start, event.nodesVisited);
+		event.commit();
+	}
 
+	/**
+	 * loadDictionary is a private helper method that adds all the words in the
+	 * dictionary file to the prefix tree.
+	 * 
+	 * @param dictionary
+	 *            a file of words which are correctly spelled
+	 * @param event
+	 *            the event the words and nodes visited are counted in
+	 * @throws IOException
+	 *             if the file is not found or cannot be read
+	 */
+	private void loadDictionary(File dictionary, DictionaryLoadEvent event)
+			throws IOException {
+		FileChannel channel = new FileInputStream(dictionary).getChannel();
+		try {
+			TokenReader reader = new TokenReader(channel);
+			while (reader.next()) {
+				// Insert each word into the prefix-tree structure.
+				event.nodesVisited += reader.length();
+				if (trie.addWord(reader.letters(), reader.length())) {
+					event.words++;
+					if (deletes != null)
+						deletes.add(reader.toString());
+				}
 			}
-			lineScan.close();
+		} finally {
+			channel.close();
 		}
-		dictionScan.close();
-
-		// Open a scanner for the corpus.
-		Scanner corpusScan = new Scanner(corpus);
-		// Scan each line of the corpus.
-		while (corpusScan.hasNext()) {
-			// Open a scanner for the line.
-			String lineToInsert = corpusScan.nextLine();
-			Scanner lineScan = new Scanner(lineToInsert);
-			// scan each word of the line.
-			while (lineScan.hasNext()) {
-				String wordToIncrease = Utilities.sanitize(lineScan.next());
-				// If the word is in the prefix-tree increment the count of the
-				// word.
-				try {
-					increaseFrequency(wordToIncrease);
-				} catch (IllegalArgumentException e) {
+	}
 
+	/**
+	 * countCorpus is a private helper method that increases the frequency of
+	 * each dictionary word every time it appears in the corpus file. Each
+	 * token is followed down the prefix tree letter by letter as it is read,
+	 * and tokens which are not words are skipped.
+	 * 
+	 * With more than one thread, the file is split into parts at whitespace
+	 * and the parts are counted at the same time. The frequencies are the same
+	 * either way.
+	 * 
+	 * @param corpus
+	 *            a file of common literature from which frequency counts will
+	 *            be derived
+	 * @param parallelism
+	 *            the number of threads to count with
+	 * @param event
+	 *            the event the nodes visited are counted in
+	 * @throws IOException
+	 *             if the file is not found or cannot be read
+	 */
+	private void countCorpus(File corpus, int parallelism,
+			DictionaryLoadEvent event) throws IOException {
+		FileChannel channel = new FileInputStream(corpus).getChannel();
+		try {
+			CorpusCounter counter = new CorpusCounter(trie, channel, 0,
+					channel.size());
+			WordCounts counts;
+			if (parallelism > ONE) {
+				try {
+					counts = pool.invoke(counter);
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
 				}
+			} else {
+				counts = counter.count();
 			}
-			lineScan.close();
+			counts.addTo(trie);
+			event.nodesVisited += counts.nodesVisited;
+		} finally {
+			channel.close();
 		}
-		corpusScan.close();
+	}
+
+	/**
+	 * Creates a spell checker from a file written by {@link #save(Path)}. The
+	 * file is mapped into memory instead of being read, so loading takes
+	 * about the same time no matter how large the dictionary is, and
+	 * processes which load the same file share its pages. The dictionary is
+	 * minimized, so {@link #addWord(String)} cannot be used on the new spell
+	 * checker.
+	 * 
+	 * @param path
+	 *            the file to read
+	 * @return the new spell checker
+	 * @throws IOException
+	 *             if the file cannot be read or was not written by
+	 *             {@link #save(Path)}
+	 */
+	public static Checker load(Path path) throws IOException {
+		Checker checker = new Checker();
+		long start = System.nanoTime();
+		DictionaryLoadEvent event = new DictionaryLoadEvent();
+		event.begin();
+		event.dictionary = path.toString();
+		Dawg dawg = Dawg.read(path);
+		checker.trie = dawg;
+		// Mapping the file reads none of it, so the event counts what was
+		// mapped rather than what was visited.
+		event.words = dawg.words();
+		event.nodesVisited = dawg.size();
+		checker.metrics.load(System.nanoTime() - start, event.nodesVisited);
+		event.commit();
+		checker.publish(true, false);
+		return checker;
 	}
 
 	/**
 	 * Adds a word to the dictionary of correctly spelled words. If the word is
 	 * already in this dictionary, nothing changes (including the frequency
-	 * count of that word). Newly added words have a frequency of 1.
+	 * count of that word). Newly added words have a frequency of 1. A new
+	 * {@link #snapshot()} including the word is published before this method
+	 * returns.
 	 * 
 	 * @param word
 	 *            the new word to be added
+	 * @throws UnsupportedOperationException
+	 *             if this spell checker's dictionary has been minimized
 	 */
-	public void addWord(String word) {
-		Node temp = root;
-		for (int i = 0; i < word.length(); i++) {
-			temp = temp.addChild(word.charAt(i));
-			if (i == (word.length() - 1) && temp.getFrequency() == 0)
-				temp.incrementFrequency();
+	public synchronized void addWord(String word) {
+		metrics.visit(word.length());
+		if (trie.addWord(word)) {
+			if (deletes != null)
+				deletes.add(word.toUpperCase());
+			boolean completionsChanged = completions != null
+					&& completions.update(trie, find(trie, word), true);
+			modifications++;
+			publish(true, completionsChanged);
 		}
 	}
 
 	/**
-	 * Checks whether or not a given word is part of this dictionary.
+	 * Increments the frequency of the given word by 1. A new
+	 * {@link #snapshot()} including the change is published before this
+	 * method returns.
 	 * 
 	 * @param word
-	 *            the word to check
-	 * @return true if the word is in this dictionary, false otherwise
+	 *            the word whose frequency will be incremented
+	 * @throws IllegalArgumentException
+	 *             if the word is not in this dictionary
 	 */
-	public boolean isWord(String word) {
-		Node temp = root;
-		for (int i = 0; i < word.length(); i++) {
-			if (temp != null) {
-				temp = temp.getChild(word.charAt(i));
-			} else if (temp == null)
-				return false;
-		}
-		if (temp.getFrequency() > 0)
-			return true;
-		else
-			return false;
+	public void increaseFrequency(String word) {
+		increaseFrequency((CharSequence) word);
 	}
 
 	/**
-	 * Returns the frequency of a given word as it was observed in the corpus
-	 * used to initialize this spell checker.
+	 * Increments the frequency of the given sequence of letters by 1, without
+	 * copying the letters or creating any objects unless
+	 * {@link #complete(String, int)} has been used.
 	 * 
 	 * @param word
-	 *            the word for which the frequency will be checked
-	 * @return the frequency of the word in the corpus
+	 *            the word whose frequency will be incremented
 	 * @throws IllegalArgumentException
 	 *             if the word is not in this dictionary
 	 */
-	public int getFrequency(String word) {
-		Node temp = root;
-		for (int i = 0; i < word.length(); i++) {
-			temp = temp.getChild(word.charAt(i));
-			if (temp == null)
-				throw new IllegalArgumentException();
-		}
-
-		return temp.getFrequency();
+	public synchronized void increaseFrequency(CharSequence word) {
+		int temp = find(trie, word);
+		if (temp == Trie.NONE)
+			throw new IllegalArgumentException();
+		increaseFrequency(temp);
 	}
 
 	/**
-	 * Increments the frequency of the given word by 1.
+	 * Increments the frequency of the letters in part of an array by 1,
+	 * without copying the letters or creating any objects unless
+	 * {@link #complete(String, int)} has been used.
 	 * 
-	 * @param word
-	 *            the word whose frequency will be incremented
+	 * @param buffer
+	 *            the array holding the word
+	 * @param offset
+	 *            the position of the first letter of the word
+	 * @param length
+	 *            the number of letters in the word
 	 * @throws IllegalArgumentException
 	 *             if the word is not in this dictionary
+	 * @throws IndexOutOfBoundsException
+	 *             if the word does not lie within the array
 	 */
-	public void increaseFrequency(String word) {
-		Node temp = root;
-		for (int i = 0; i < word.length(); i++) {
-			temp = temp.getChild(word.charAt(i));
-			if (temp == null)
-				throw new IllegalArgumentException();
-		}
-		if (temp != root)
-			temp.incrementFrequency();
+	public synchronized void increaseFrequency(char[] buffer, int offset,
+			int length) {
+		checkRange(buffer, offset, length);
+		int temp = find(trie, buffer, offset, length);
+		if (temp == Trie.NONE)
+			throw new IllegalArgumentException();
+		increaseFrequency(temp);
 	}
 
 	/**
-	 * Given some string, this method returns a list of {@link Suggestion}s for
-	 * correctly spelled words that are similar to the string. The list of
-	 * suggestions is sorted according to three criteria:
-	 * <ul>
-	 * <li>Suggestions with lower edit distance appear first.
-	 * <li>
-	 * <li>Between suggestions with the same edit distance, suggestions with
-	 * higher frequency counts appear first.
-	 * <li>
-	 * <li>Between suggestions with the same frequency counts, suggestions first
-	 * in alphabetical order appear first.</li>
-	 * </ul>
-	 * 
-	 * The list of suggestions will include all words which are
-	 * {@link #MAX_EDIT_DISTANCE} edit distance away from the given string.
+	 * increaseFrequency is a private helper method that increments the
+	 * frequency of a word, keeps the completion index up to date and
+	 * publishes the change.
 	 * 
-	 * If the given string is a correctly spelled word, the first suggestion
-	 * will be the word itself.
-	 * 
-	 * @param string
-	 *            the string for which suggestions will be returned
-	 * @return a list of suggestions sorted by how likely they are to be the
-	 *         intended correct spelling
+	 * @param id
+	 *            the id of the word.
 	 */
-	public Suggestion[] getSuggestions(String string) {
-		int currentEditDistance = 0;
-		int currentIndex = 0;
+	private void increaseFrequency(int id) {
+		trie.incrementFrequency(id);
+		boolean completionsChanged = completions != null
+				&& completions.update(trie, id, false);
+		modifications++;
+		publish(false, completionsChanged);
+	}
 
-		/**
-		 * SpellingComparator allows comparison of Suggestion objects for use in
-		 * a sorting algorithm where editDistance is the first criterion,
-		 * frequency the second, and alphabetical order the third.
-		 * 
-		 * @author James Woods
-		 * 
-		 */
-		class SpellingComparator implements Comparator<Suggestion> {
-
-			/**
-			 * compare compares o1 to o2 and returns a positive value if o1 is
-			 * greater, a negative if it is smaller and a zero if the values are
-			 * the same.
-			 */
-			public int compare(Suggestion o1, Suggestion o2) {
-
-				if (o1.editDistance != o2.editDistance)
-					return o1.editDistance - o2.editDistance;
-				else if (o1.frequency != o2.frequency)
-					return o2.frequency - o1.frequency;
-				else
-					return o1.string.compareTo(o2.string);
+	/**
+	 * Returns an unchangeable copy of this dictionary which can be read by
+	 * any number of threads at once without locking. Changes made to this
+	 * spell checker afterwards do not show up in the snapshot; every change
+	 * publishes a new snapshot, which the next call to this method returns.
+	 * Snapshots are swapped in all at once, so a thread never sees a
+	 * dictionary that is only partly changed, and since they are made by the
+	 * thread making the change, this method never waits for a change or
+	 * copies anything.
+	 * 
+	 * @return a snapshot of the dictionary as it is now
+	 */
+	public DictionarySnapshot snapshot() {
+		return published;
+	}
 
-			}
+	/**
+	 * publish is a private helper method that copies the dictionary into a
+	 * new snapshot after a change and swaps it in. Only the parts which
+	 * changed since the previous snapshot are copied; the rest are shared
+	 * with it, so after a frequency has changed only the frequencies are
+	 * copied.
+	 * 
+	 * @param wordAdded
+	 *            whether the change added a word, or only changed
+	 *            frequencies.
+	 * @param completionsChanged
+	 *            whether the change replaced a list of the completion index.
+	 */
+	private void publish(boolean wordAdded, boolean completionsChanged) {
+		DictionarySnapshot previous = published;
+		Trie trieCopy;
+		SymmetricDeleteIndex deletesCopy;
+		if (previous == null || wordAdded) {
+			trieCopy = trie.copy();
+			deletesCopy = deletes == null ? null : deletes.copy();
+		} else {
+			trieCopy = trie.copyFrequencies(previous.trie());
+			deletesCopy = previous.deletes();
+		}
 
+		CompletionIndex completionsCopy = completions;
+		if (completionsCopy != null) {
+			if (completionsChanged || publishedCompletions == null)
+				completionsCopy = completionsCopy.copy();
+			else
+				completionsCopy = publishedCompletions;
 		}
 
-		// Create a SpellingComparator to make comparisons between Suggestion
-		// objects.
-		SpellingComparator comparator = new SpellingComparator();
+		publishedCompletions = completionsCopy;
+		published = new DictionarySnapshot(trieCopy, deletesCopy,
+				completionsCopy, metrics, pool);
+	}
 
-		Suggestion[] suggestions = new Suggestion[100];
-		searchPrefixTree(string, currentEditDistance, currentIndex, root,
-				suggestions);
+	@Override
+	Trie trie() {
+		return trie;
+	}
 
-		suggestions = trimArray(suggestions);
+	@Override
+	SymmetricDeleteIndex deletes() {
+		return deletes;
+	}
 
-		// Create a HeapSort for the suggestions
-		HeapSorter<Suggestion> sort = new HeapSorter<Suggestion>(comparator);
-		// Sort
-		sort.sort(suggestions);
+	@Override
+	ForkJoinPool pool() {
+		return pool;
+	}
 
-		//reset the index.
-		index = 0;
-		// Return
-		return suggestions;
+	@Override
+	long version() {
+		return modifications;
 	}
 
 	/**
-	 * searchPrefixTree is a private helper method that performs a search of the
-	 * prefix-tree and adds found words within the edit distance to an array of
-	 * words.
+	 * A builder collects the options for a spell checker before it is
+	 * created. Options which change how the dictionary is stored have to be
+	 * chosen before any words are added, which is why they are not setters on
+	 * {@link Checker} itself.
 	 * 
-	 * @param string
-	 *            the string to find words for.
-	 * @param currentEditDistance
-	 *            the current edit distance.
-	 * @param currentIndex
-	 *            the index position in the string.
-	 * @param current
-	 *            the current node in the prefix tree.
-	 * @param words
-	 *            the array of words.
+	 * @author James Woods
 	 */
-	private void searchPrefixTree(String string, int currentEditDistance,
-			int currentIndex, Node current, Suggestion[] words) {
-
-		if (current != null) {
-			// If the current nodes string is less than x away.
-			if (currentEditDistance < MAX_EDIT_DISTANCE) {
-
-				// insert each letter.
-				for (char toCheck : Utilities.LETTERS) {
-					Node checkNode = current.getChild(toCheck);
-
-					searchPrefixTree(string, currentEditDistance + ONE,
-							currentIndex, checkNode, words);
-					// substitute each letter.
-					searchPrefixTree(string, currentEditDistance + ONE,
-							currentIndex + ONE, checkNode, words);
-				}
-				// delete current letter.
-				searchPrefixTree(string, currentEditDistance + ONE,
-						currentIndex + ONE, current, words);
+	public static class Builder {
 
-			}
+		/** The file of correctly spelled words, or null for none. */
+		private File dictionary;
 
-			// If index < length of the string
-			if (currentIndex < string.length()) {
+		/** The file of literature to count frequencies in, or null for none. */
+		private File corpus;
 
-				searchPrefixTree(string, currentEditDistance, currentIndex
-						+ ONE, current.getChild(string.charAt(currentIndex)),
-						words);
-			}
-			// If index == length and the string is a word.
-			int freq = 0;
-			if (currentIndex == string.length()
-					&& (freq = current.getFrequency()) > 0) {
-				// replace edit distance 2 words with frequency one words.
-				if (currentEditDistance < 2
-						&& arrayContains(words, new Suggestion(current
-								.toString().toUpperCase(), 2, freq))) {
-					// replace the edit distance two version.
-					replaceInArray(words, new Suggestion(current.toString()
-							.toUpperCase(), 2, freq), new Suggestion(current
-							.toString().toUpperCase(), currentEditDistance,
-							freq));
-				}
-				// if edit distance one words already exist don't add them
-//				else if (currentEditDistance < 2
-//						&& !arrayContains(words, new Suggestion(current
-//								.toString().toUpperCase(), ONE, freq))) {
-//					// insert the edit distance one word.
-//					words = verifyCapacity(words);
-//					words[index++] = new Suggestion(current.toString()
-//							.toUpperCase(), currentEditDistance, freq);
-//				}
-				// if edit distance two words already exist don't add them
-				// and if there is an edit distance one word don't add them
-				else if (currentEditDistance == 2
-						&& !arrayContains(words, new Suggestion(current
-								.toString().toUpperCase(), 2, freq))
-						&& !arrayContains(words, new Suggestion(current
-								.toString().toUpperCase(), ONE, freq))) {
-					// insert the edit distance two word.
-					words[index++] = new Suggestion(current.toString()
-							.toUpperCase(), currentEditDistance, freq);
-				}
+		/** Whether suggestions come from a symmetric delete index. */
+		private boolean symmetricDelete;
 
-			}
-		}
+		/** Whether the dictionary is minimized once it is loaded. */
+		private boolean minimized;
 
-	}
+		/** The number of threads used to count the corpus. */
+		private int parallelism = ONE;
 
-	/**
-	 * arrayContains is a helper method that returns a boolean representing
-	 * whether a given item is in the given array.
-	 * 
-	 * @param array
-	 *            the array to search.
-	 * @param element
-	 *            the element to find in the array.
-	 * @return whether or not the item is in the array or not.
-	 */
-	private boolean arrayContains(Suggestion[] array, Suggestion element) {
-		for (int i = 0; i < index; i++) {
-			if (array[i].toString().equals(element.toString()))
-				return true;
+		/**
+		 * Sets the file of words which are correctly spelled.
+		 * 
+		 * @param dictionary
+		 *            the dictionary file
+		 * @return this builder
+		 */
+		public Builder dictionary(File dictionary) {
+			this.dictionary = dictionary;
+			return this;
 		}
-		return false;
-	}
 
-	/**
-	 * replaceInArray is a private helper method that finds an item in an array
-	 * and replaces it with another item.
-	 * 
-	 * @param array
-	 *            to perform replacement in.
-	 * @param toReplace
-	 *            the item to be replaced.
-	 * @param replace
-	 *            the item to place in the array.
-	 */
-	private void replaceInArray(Suggestion[] array, Suggestion toReplace,
-			Suggestion replace) {
-		for (int i = 0; i < index; i++) {
-			if (array[i].toString().equals(toReplace.toString()))
-				array[i] = replace;
+		/**
+		 * Sets the file of common literature from which frequency counts will
+		 * be derived.
+		 * 
+		 * @param corpus
+		 *            the corpus file
+		 * @return this builder
+		 */
+		public Builder corpus(File corpus) {
+			this.corpus = corpus;
+			return this;
 		}
-	}
 
-	/**
-	 * trimArray re-sizes an array so that it no longer contains any null
-	 * values.
-	 * 
-	 * @param array
-	 *            to be trimmed.
-	 * @return the trimmed array.
-	 */
-	private Suggestion[] trimArray(Suggestion[] array) {
+		/**
+		 * Sets whether the spell checker precomputes every deletion of every
+		 * dictionary word within {@link Checker#MAX_EDIT_DISTANCE} so that
+		 * {@link Checker#getSuggestions(String)} only has to look up the
+		 * deletions of the given string. This uses much more memory and makes
+		 * adding words slower, but makes finding suggestions much faster. The
+		 * suggestions returned are the same either way.
+		 * 
+		 * @param symmetricDelete
+		 *            true to use a symmetric delete index
+		 * @return this builder
+		 */
+		public Builder symmetricDelete(boolean symmetricDelete) {
+			this.symmetricDelete = symmetricDelete;
+			return this;
+		}
 
-			Suggestion temp[] = new Suggestion[index];
+		/**
+		 * Sets whether the dictionary is turned into a minimized directed
+		 * acyclic word graph once the dictionary and corpus have been read,
+		 * so that words which end the same way share the states for their
+		 * common ending. This makes the dictionary much smaller, but no words
+		 * can be added to it afterwards; {@link Checker#addWord(String)} will
+		 * throw an {@link UnsupportedOperationException}. Frequencies can
+		 * still be increased.
+		 * 
+		 * @param minimized
+		 *            true to minimize the dictionary
+		 * @return this builder
+		 */
+		public Builder minimized(boolean minimized) {
+			this.minimized = minimized;
+			return this;
+		}
 
-			for (int i = 0; i < index; i++) {
-				temp[i] = array[i];
-			}
-			return temp;
+		/**
+		 * Sets the number of threads used to count the words in the corpus.
+		 * With more than one, the corpus file is split into parts at
+		 * whitespace, each part is counted on its own, and the counts are
+		 * added together at the end. The frequencies are exactly the same as
+		 * when counting with one thread, which is the default.
+		 * 
+		 * With more than one thread, the spell checker also gets a pool of
+		 * its own with that many threads, which counts the corpus and runs
+		 * the lookups of {@link Checker#checkAll(java.util.Collection)} for
+		 * the spell checker and its snapshots. Otherwise the lookups are run
+		 * by the common pool.
+		 * 
+		 * @param parallelism
+		 *            the number of threads, such as the number of processors
+		 * @return this builder
+		 * @throws IllegalArgumentException
+		 *             if parallelism is less than 1
+		 */
+		public Builder parallelism(int parallelism) {
+			if (parallelism < ONE)
+				throw new IllegalArgumentException(
+						"Parallelism must be at least 1.");
+			this.parallelism = parallelism;
+			return this;
+		}
 
+		/**
+		 * Creates a spell checker with the chosen options.
+		 * 
+		 * @return the new spell checker
+		 * @throws IOException
+		 *             if the dictionary or corpus file is not found or cannot
+		 *             be read
+		 */
+		public Checker build() throws IOException {
+			Checker checker = new Checker();
+			if (parallelism > ONE)
+				checker.pool = new ForkJoinPool(parallelism);
+			if (symmetricDelete)
+				checker.deletes = new SymmetricDeleteIndex();
+			if (dictionary != null || corpus != null)
+				checker.loadFiles(dictionary, corpus, parallelism);
+			if (minimized)
+				checker.trie = new Dawg(checker.trie);
+			checker.publish(true, false);
+			return checker;
+		}
 	}
 }
@@ -0,0 +1,220 @@
+package spellcheck.spell;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checker metrics count the work a spell checker does: how many nodes of the
+ * prefix tree it visits, how many candidate words its searches generate and
+ * how many of those were found more than once, how long ranking takes, and
+ * how long queries and loads take. Every counter is a {@link LongAdder}, so
+ * any number of threads can update them at once, and a query only pays for a
+ * few uncontended additions.
+ * 
+ * The same numbers for a single query are kept in the
+ * {@link SuggestionBuffer} it was answered into. The slowest query since the
+ * last {@link #reset()} is remembered here, so a token which makes the search
+ * blow up can be found without recording every query. When a flight recording
+ * is running, every query and load is also recorded as an event in the
+ * "VauTexEdit" category.
+ * 
+ * A {@link DictionarySnapshot} adds to the metrics of the spell checker it was
+ * made from.
+ * 
+ * @author James Woods
+ */
+public final class CheckerMetrics {
+
+	/** The number of suggestion queries answered. */
+	private final LongAdder queries = new LongAdder();
+
+	/** The number of nodes visited by lookups, queries and loads. */
+	private final LongAdder nodesVisited = new LongAdder();
+
+	/** The number of candidate words generated by queries. */
+	private final LongAdder candidatesGenerated = new LongAdder();
+
+	/** The number of candidate words generated more than once by a query. */
+	private final LongAdder candidatesDeduplicated = new LongAdder();
+
+	/** The time spent ranking suggestions, in nanoseconds. */
+	private final LongAdder sortTime = new LongAdder();
+
+	/** The time taken by each query. */
+	private final LatencyHistogram queryLatency = new LatencyHistogram();
+
+	/** The time taken by each load. */
+	private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+	/** The time taken by the slowest query, in nanoseconds. */
+	private volatile long slowestLatency = -1;
+
+	/** The string of the slowest query, or null if there has been none. */
+	private String slowestQuery;
+
+	/**
+	 * Returns the number of suggestion queries answered. A query asked for
+	 * with {@link SpellingDictionary#getSuggestionsLazily(String)} counts
+	 * once for each edit distance it searches.
+	 * 
+	 * @return the number of queries
+	 */
+	public long getQueries() {
+		return queries.sum();
+	}
+
+	/**
+	 * Returns the number of nodes of the prefix tree visited while looking up
+	 * words, finding suggestions and completions, and loading files.
+	 * 
+	 * @return the number of nodes visited
+	 */
+	public long getNodesVisited() {
+		return nodesVisited.sum();
+	}
+
+	/**
+	 * Returns the number of candidate words queries have generated,
+	 * including those generated more than once.
+	 * 
+	 * @return the number of candidates
+	 */
+	public long getCandidatesGenerated() {
+		return candidatesGenerated.sum();
+	}
+
+	/**
+	 * Returns the number of candidate words queries have thrown away because
+	 * they had already been generated by the same query.
+	 * 
+	 * @return the number of duplicate candidates
+	 */
+	public long getCandidatesDeduplicated() {
+		return candidatesDeduplicated.sum();
+	}
+
+	/**
+	 * Returns the total time queries have spent ranking their suggestions.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	public long getSortTime() {
+		return sortTime.sum();
+	}
+
+	/**
+	 * Returns the histogram of how long queries took, from the moment they
+	 * were asked until their suggestions were ranked.
+	 * 
+	 * @return the histogram of query latencies
+	 */
+	public LatencyHistogram getQueryLatency() {
+		return queryLatency;
+	}
+
+	/**
+	 * Returns the histogram of how long it took to load dictionary and
+	 * corpus files.
+	 * 
+	 * @return the histogram of load latencies
+	 */
+	public LatencyHistogram getLoadLatency() {
+		return loadLatency;
+	}
+
+	/**
+	 * Returns the string of the slowest query since the metrics were reset.
+	 * 
+	 * @return the upper case string, or null if there has been no query
+	 */
+	public synchronized String getSlowestQuery() {
+		return slowestQuery;
+	}
+
+	/**
+	 * Returns how long the slowest query since the metrics were reset took.
+	 * 
+	 * @return the time in nanoseconds, or -1 if there has been no query
+	 */
+	public long getSlowestLatency() {
+		return slowestLatency;
+	}
+
+	/**
+	 * Sets every counter back to zero. Updates made while the metrics are
+	 * being reset may or may not be forgotten.
+	 */
+	public void reset() {
+		queries.reset();
+		nodesVisited.reset();
+		candidatesGenerated.reset();
+		candidatesDeduplicated.reset();
+		sortTime.reset();
+		queryLatency.reset();
+		loadLatency.reset();
+		synchronized (this) {
+			slowestQuery = null;
+			slowestLatency = -1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "queries=" + getQueries() + " nodesVisited="
+				+ getNodesVisited() + " candidatesGenerated="
+				+ getCandidatesGenerated() + " candidatesDeduplicated="
+				+ getCandidatesDeduplicated() + " sortTime=" + getSortTime()
+				+ "ns queryLatency=[" + queryLatency + "] loadLatency=["
+				+ loadLatency + "] slowestQuery=" + getSlowestQuery();
+	}
+
+	/**
+	 * Counts nodes visited outside of a query.
+	 * 
+	 * @param nodes
+	 *            the number of nodes visited
+	 */
+	void visit(long nodes) {
+		nodesVisited.add(nodes);
+	}
+
+	/**
+	 * Counts a query whose statistics have been put in a buffer.
+	 * 
+	 * @param string
+	 *            the upper case string of the query
+	 * @param buffer
+	 *            the buffer the query was answered into
+	 */
+	void query(String string, SuggestionBuffer buffer) {
+		// The nodes were counted as they were visited, by find and the
+		// search of the prefix tree.
+		queries.increment();
+		candidatesGenerated.add(buffer.candidatesGenerated());
+		candidatesDeduplicated.add(buffer.candidatesDeduplicated());
+		sortTime.add(buffer.sortTime());
+		long latency = buffer.latency();
+		queryLatency.record(latency);
+		// Only queries slower than the slowest so far take the lock.
+		if (latency > slowestLatency) {
+			synchronized (this) {
+				if (latency > slowestLatency) {
+					slowestQuery = string;
+					slowestLatency = latency;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts a load of dictionary or corpus files.
+	 * 
+	 * @param nanos
+	 *            the time the load took
+	 * @param nodes
+	 *            the number of nodes visited
+	 */
+	void load(long nanos, long nodes) {
+		loadLatency.record(nanos);
+		nodesVisited.add(nodes);
+	}
+}
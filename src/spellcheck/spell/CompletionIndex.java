@@ -0,0 +1,380 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+
+/**
+ * A completion index holds the most frequent words under each prefix of a
+ * dictionary, so that completing a prefix only takes a lookup. Lists are only
+ * kept for prefixes with more than {@link #LIST_SIZE} words below them; the
+ * words under any other prefix are few enough to be found by searching the
+ * prefix tree, which keeps the index small.
+ * 
+ * A prefix is looked up by the id of its path in the prefix tree together
+ * with its length, which tells it apart from every other prefix of the same
+ * tree, so looking up the prefixes of a word does not create any strings.
+ * The lists are kept in primitive arrays with open addressing, like
+ * {@link WordCounts}.
+ * 
+ * The lists are kept up to date as words are added and frequencies grow,
+ * which only ever moves a word up a list or onto it, and a list is made for a
+ * prefix as soon as it has more than {@link #LIST_SIZE} words below it. A
+ * list is replaced rather than changed, so a copy of the index only has to
+ * copy the table, and a frequency which does not move a word onto a list
+ * does not replace anything.
+ * 
+ * @author James Woods
+ */
+final class CompletionIndex {
+
+	/** The number of words kept for each prefix. */
+	public static final int LIST_SIZE = 10;
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The number of slots room is made for at first. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The key of a slot with no list in it. */
+	private static final long EMPTY = -1;
+
+	/** The order of the words in a list, most frequent first. */
+	private final SpellingComparator comparator = new SpellingComparator();
+
+	/** The key of the prefix in each slot, or {@link #EMPTY}. */
+	private long[] keys;
+
+	/** The most frequent words under the prefix in each slot. */
+	private Suggestion[][] lists;
+
+	/** The number of slots in use. */
+	private int size;
+
+	/** The letters of the word being updated. */
+	private byte[] letters = new byte[16];
+
+	/**
+	 * Creates an empty index.
+	 */
+	private CompletionIndex() {
+		keys = new long[INITIAL_CAPACITY];
+		lists = new Suggestion[INITIAL_CAPACITY][];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Builds the index for every prefix of a prefix tree with one walk of the
+	 * tree, merging the lists of the children of each state into the list of
+	 * the state.
+	 * 
+	 * @param trie
+	 *            the prefix tree
+	 * @return the index
+	 */
+	public static CompletionIndex build(Trie trie) {
+		CompletionIndex index = new CompletionIndex();
+		index.build(trie, trie.root(), Trie.ROOT_ID, new StringBuilder(), null);
+		return index;
+	}
+
+	/**
+	 * Returns the most frequent words under a prefix.
+	 * 
+	 * @param id
+	 *            the id of the path to the prefix in the prefix tree
+	 * @param length
+	 *            the number of letters in the prefix
+	 * @return the words, most frequent first, or null if the prefix does not
+	 *         have more than {@link #LIST_SIZE} words below it
+	 */
+	public Suggestion[] get(int id, int length) {
+		long key = key(id, length);
+		int mask = keys.length - ONE;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key)
+			slot = (slot + ONE) & mask;
+		return lists[slot];
+	}
+
+	/**
+	 * Updates the list of every prefix of a word after the word was added or
+	 * its frequency grew, and makes a list for every prefix which now has
+	 * more than {@link #LIST_SIZE} words below it. Lists the word does not
+	 * move onto or up are left alone, and nothing is created for them.
+	 * 
+	 * @param trie
+	 *            the prefix tree the index was built from
+	 * @param id
+	 *            the id of the word
+	 * @param added
+	 *            true if the word was just added, false if only its
+	 *            frequency grew
+	 * @return true if any list was replaced or made, false otherwise
+	 */
+	public boolean update(Trie trie, int id, boolean added) {
+		int length = trie.spell(id, letters);
+		if (length > letters.length) {
+			letters = new byte[length];
+			trie.spell(id, letters);
+		}
+		int frequency = trie.getFrequency(id);
+
+		boolean changed = false;
+		int state = trie.root();
+		int path = Trie.ROOT_ID;
+		for (int depth = 0;; depth++) {
+			Suggestion[] list = get(path, depth);
+			if (list == null) {
+				// A prefix without a list has few enough words below it that
+				// none of the longer prefixes has a list either, so the only
+				// lists left to make are for prefixes the new word filled up.
+				if (!added || build(trie, state, path, spelling(depth),
+						null) <= LIST_SIZE)
+					break;
+				changed = true;
+			} else {
+				Suggestion[] replacement = offer(list, length, frequency);
+				if (replacement != list) {
+					put(key(path, depth), replacement);
+					changed = true;
+				}
+			}
+			if (depth == length)
+				break;
+			int edge = trie.edge(state, letters[depth]);
+			path = trie.step(path, state, edge);
+			state = trie.target(edge);
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns an index with the same lists as this one, which does not change
+	 * when this one does.
+	 * 
+	 * @return the copy
+	 */
+	public CompletionIndex copy() {
+		CompletionIndex copy = new CompletionIndex();
+		copy.keys = Arrays.copyOf(keys, keys.length);
+		copy.lists = Arrays.copyOf(lists, lists.length);
+		copy.size = size;
+		return copy;
+	}
+
+	/**
+	 * build is a private helper method that finds the most frequent words
+	 * below a state, stores them if there are more than {@link #LIST_SIZE}
+	 * words below the state, and offers them to the list of its parent.
+	 * 
+	 * @param trie
+	 *            the prefix tree.
+	 * @param state
+	 *            the current state.
+	 * @param id
+	 *            the id of the path to the current state.
+	 * @param path
+	 *            the letters of the path to the current state.
+	 * @param parent
+	 *            the list of the parent state, or null for none.
+	 * @return the number of words below the state, including itself.
+	 */
+	private int build(Trie trie, int state, int id, StringBuilder path,
+			SuggestionQueue parent) {
+		SuggestionQueue queue = new SuggestionQueue(LIST_SIZE);
+		int count = 0;
+		if (trie.isWord(state)) {
+			queue.add(new Suggestion(path.toString(), 0, trie.getFrequency(id)));
+			count++;
+		}
+
+		int length = path.length();
+		for (int edge = trie.firstEdge(state); edge != Trie.NONE; edge = trie
+				.nextEdge(edge)) {
+			path.append(Utilities.LETTERS[trie.letter(edge)]);
+			count += build(trie, trie.target(edge), trie.step(id, state, edge),
+					path, queue);
+			path.setLength(length);
+		}
+
+		Suggestion[] list = queue.toArray();
+		if (count > LIST_SIZE)
+			put(key(id, length), list);
+		if (parent != null) {
+			for (Suggestion suggestion : list)
+				parent.add(suggestion);
+		}
+		return count;
+	}
+
+	/**
+	 * offer is a private helper method that moves the word being updated to
+	 * its place in a list, or onto the list if it now belongs there.
+	 * 
+	 * @param list
+	 *            the list, most frequent first.
+	 * @param length
+	 *            the number of letters in the word.
+	 * @param frequency
+	 *            the new frequency of the word.
+	 * @return a new list, or the same list if the word does not belong on it.
+	 */
+	private Suggestion[] offer(Suggestion[] list, int length, int frequency) {
+		int position = 0;
+		while (position < list.length
+				&& !spells(list[position].string, length))
+			position++;
+		if (position < list.length && list[position].frequency == frequency)
+			return list;
+		if (position == list.length && list.length == LIST_SIZE) {
+			Suggestion last = list[list.length - ONE];
+			if (frequency < last.frequency
+					|| (frequency == last.frequency && compare(length,
+							last.string) >= 0))
+				return list;
+		}
+
+		String word = position < list.length ? list[position].string
+				: spelling(length).toString();
+		Suggestion suggestion = new Suggestion(word, 0, frequency);
+		Suggestion[] replacement = new Suggestion[Math.min(LIST_SIZE,
+				position < list.length ? list.length : list.length + ONE)];
+		int from = 0;
+		for (int to = 0; to < replacement.length; to++) {
+			if (from == position)
+				from++;
+			if (suggestion != null
+					&& (from >= list.length || comparator.compare(suggestion,
+							list[from]) < 0)) {
+				replacement[to] = suggestion;
+				suggestion = null;
+			} else {
+				replacement[to] = list[from++];
+			}
+		}
+		return replacement;
+	}
+
+	/**
+	 * spells is a private helper method that checks whether a string is the
+	 * word being updated.
+	 * 
+	 * @param string
+	 *            the string.
+	 * @param length
+	 *            the number of letters in the word.
+	 * @return true if the string spells the word, false otherwise.
+	 */
+	private boolean spells(String string, int length) {
+		if (string.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (string.charAt(i) != Utilities.LETTERS[letters[i]])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * compare is a private helper method that compares the word being updated
+	 * to a string in alphabetical order.
+	 * 
+	 * @param length
+	 *            the number of letters in the word.
+	 * @param string
+	 *            the string.
+	 * @return a negative number, zero or a positive number as the word comes
+	 *         before, is the same as or comes after the string.
+	 */
+	private int compare(int length, String string) {
+		int shorter = Math.min(length, string.length());
+		for (int i = 0; i < shorter; i++) {
+			int difference = Utilities.LETTERS[letters[i]] - string.charAt(i);
+			if (difference != 0)
+				return difference;
+		}
+		return length - string.length();
+	}
+
+	/**
+	 * spelling is a private helper method that spells the first letters of
+	 * the word being updated.
+	 * 
+	 * @param length
+	 *            the number of letters.
+	 * @return the letters.
+	 */
+	private StringBuilder spelling(int length) {
+		StringBuilder prefix = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+			prefix.append(Utilities.LETTERS[letters[i]]);
+		return prefix;
+	}
+
+	/**
+	 * put is a private helper method that stores the list of a prefix.
+	 * 
+	 * @param key
+	 *            the key of the prefix.
+	 * @param list
+	 *            the list.
+	 */
+	private void put(long key, Suggestion[] list) {
+		int mask = keys.length - ONE;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key)
+			slot = (slot + ONE) & mask;
+		lists[slot] = list;
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			if (++size * 2 > keys.length)
+				grow();
+		}
+	}
+
+	/**
+	 * grow is a private helper method that moves every list into a table
+	 * twice the size.
+	 */
+	private void grow() {
+		long[] oldKeys = keys;
+		Suggestion[][] oldLists = lists;
+		keys = new long[oldKeys.length * 2];
+		lists = new Suggestion[oldKeys.length * 2][];
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldKeys[slot] != EMPTY)
+				put(oldKeys[slot], oldLists[slot]);
+		}
+	}
+
+	/**
+	 * key is a private helper method that combines the id and length of a
+	 * prefix into the key it is stored under.
+	 * 
+	 * @param id
+	 *            the id of the path to the prefix.
+	 * @param length
+	 *            the number of letters in the prefix.
+	 * @return the key.
+	 */
+	private static long key(int id, int length) {
+		return ((long) length << 32) | (id & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * hash is a private helper method that spreads the bits of a key so that
+	 * the prefixes of one word do not fill consecutive slots.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @return the hash of the key.
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
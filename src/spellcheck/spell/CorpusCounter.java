@@ -0,0 +1,116 @@
+package spellcheck.spell;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A corpus counter counts how many times each dictionary word appears in part
+ * of a corpus file. Large parts are split in two at whitespace and counted by
+ * separate fork/join tasks, each into its own {@link WordCounts}, and the
+ * tables are added together as the tasks finish. Since counts only ever add
+ * up, the result is the same as counting the whole file in order.
+ * 
+ * The trie is only read while counting, so it must not be changed until the
+ * counter has finished.
+ * 
+ * @author James Woods
+ */
+final class CorpusCounter extends RecursiveTask<WordCounts> {
+
+	/** Unique identifier for serialization. */
+	private static final long serialVersionUID = 1L;
+
+	/** Parts of the file no larger than this many bytes are not split. */
+	static final long SPLIT_SIZE = 1 << 20;
+
+	/** The trie whose words are counted. */
+	private final Trie trie;
+
+	/** The corpus file. */
+	private final FileChannel file;
+
+	/** The position of the first byte to count. */
+	private final long start;
+
+	/** The position just after the last byte to count. */
+	private final long end;
+
+	/**
+	 * Creates a counter for part of a corpus file.
+	 * 
+	 * @param trie
+	 *            the trie whose words are counted
+	 * @param file
+	 *            the corpus file
+	 * @param start
+	 *            the position of the first byte to count, which should be the
+	 *            start of the file or whitespace
+	 * @param end
+	 *            the position just after the last byte to count, which should
+	 *            be the end of the file or whitespace
+	 */
+	public CorpusCounter(Trie trie, FileChannel file, long start, long end) {
+		this.trie = trie;
+		this.file = file;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	protected WordCounts compute() {
+		try {
+			if (end - start > SPLIT_SIZE) {
+				long middle = TokenReader.align(file, start + (end - start)
+						/ 2, end);
+				if (middle < end) {
+					CorpusCounter left = new CorpusCounter(trie, file, start,
+							middle);
+					CorpusCounter right = new CorpusCounter(trie, file, middle,
+							end);
+					left.fork();
+					WordCounts counts = right.compute();
+					counts.addAll(left.join());
+					return counts;
+				}
+			}
+			return count();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Counts the words in this part of the file on the current thread.
+	 * 
+	 * @return the count of every word that appeared
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public WordCounts count() throws IOException {
+		WordCounts counts = new WordCounts();
+		TokenReader reader = new TokenReader(file, start, end);
+		while (reader.next()) {
+			byte[] letters = reader.letters();
+			int length = reader.length();
+			int state = trie.root();
+			int id = Trie.ROOT_ID;
+			for (int i = 0; i < length && state != Trie.NONE; i++) {
+				int edge = trie.edge(state, letters[i]);
+				counts.nodesVisited++;
+				if (edge == Trie.NONE) {
+					state = Trie.NONE;
+				} else {
+					id = trie.step(id, state, edge);
+					state = trie.target(edge);
+				}
+			}
+			// If the word is in the prefix-tree increment the count of the
+			// word.
+			if (state != Trie.NONE && trie.isWord(state))
+				counts.add(id, 1);
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,609 @@
+package spellcheck.spell;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A DAWG (directed acyclic word graph) is a trie in which identical subtrees
+ * are stored only once. Two states are merged whenever they are both words or
+ * both not words and have the same edges leading to the same states, so
+ * common endings like "-ING", "-TION" and "-NESS" are shared by every word
+ * that uses them instead of being repeated under every prefix. The result is
+ * the smallest graph which accepts exactly the same words.
+ * 
+ * Because a state no longer belongs to a single word, frequencies cannot be
+ * stored in the states. Instead every state records how many words can be
+ * spelled from it, and the id of a word is the number of words which come
+ * before it in alphabetical order. That id is a slot in an array of
+ * frequencies, so each word has exactly one slot and there are no unused
+ * ones.
+ * 
+ * Words cannot be added once the graph has been built. A graph can be written
+ * to a file and mapped back into memory, which is much faster than building
+ * the dictionary again.
+ * 
+ * @author James Woods
+ */
+final class Dawg extends Trie {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The bit set on the letter of the last edge leaving a state. */
+	private static final int LAST = 0x40;
+
+	/** The bits holding the letter of an edge. */
+	private static final int LETTER = 0x3F;
+
+	/** The number of states and edges room is made for at first. */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** The first four bytes of a file written by {@link #write(Path)}. */
+	private static final int MAGIC = 0x56544458;
+
+	/** The version of the file format written by {@link #write(Path)}. */
+	private static final int VERSION = 1;
+
+	/** The number of bytes in the header of a file. */
+	private static final int HEADER_SIZE = 24;
+
+	/** The first edge leaving each state, or {@link Trie#NONE}. */
+	private final IntBuffer stateEdges;
+
+	/** The number of words that can be spelled from each state. */
+	private final IntBuffer stateWords;
+
+	/** 1 for each state which is the end of a word, 0 for the others. */
+	private final ByteBuffer stateFinals;
+
+	/**
+	 * The letter of each edge, with {@link #LAST} set on the last edge of each
+	 * state.
+	 */
+	private final ByteBuffer edgeLetters;
+
+	/** The state each edge leads to. */
+	private final IntBuffer edgeTargets;
+
+	/**
+	 * The number of words that can be spelled through the earlier edges of
+	 * the same state, which is how far the id moves by taking each edge.
+	 */
+	private final IntBuffer edgeSkips;
+
+	/**
+	 * The frequency of each word, by id. When the graph is read from a file
+	 * this is a read-only view of the file until the first frequency changes,
+	 * at which point it is copied onto the heap.
+	 */
+	private IntBuffer frequencies;
+
+	/** The root state. */
+	private final int root;
+
+	/**
+	 * The number of letters in the longest word, or -1 until it is first
+	 * asked for. Working it out again gives the same answer, so threads
+	 * which share the graph may all set it.
+	 */
+	private int longest = -1;
+
+	/**
+	 * Creates the minimized form of a trie, including the frequencies of all
+	 * its words.
+	 * 
+	 * @param source
+	 *            the trie to minimize
+	 */
+	public Dawg(Trie source) {
+		Minimizer minimizer = new Minimizer();
+		root = minimizer.minimize(source, source.root(), ROOT_ID);
+
+		// Drop the unused capacity.
+		int states = minimizer.states;
+		int edges = minimizer.edges;
+		stateEdges = IntBuffer.wrap(trim(minimizer.stateEdges, states));
+		stateWords = IntBuffer.wrap(trim(minimizer.stateWords, states));
+		byte[] finals = new byte[states];
+		System.arraycopy(minimizer.stateFinals, 0, finals, 0, states);
+		stateFinals = ByteBuffer.wrap(finals);
+		byte[] letters = new byte[edges];
+		System.arraycopy(minimizer.edgeLetters, 0, letters, 0, edges);
+		edgeLetters = ByteBuffer.wrap(letters);
+		edgeTargets = IntBuffer.wrap(trim(minimizer.edgeTargets, edges));
+		edgeSkips = IntBuffer.wrap(trim(minimizer.edgeSkips, edges));
+		frequencies = IntBuffer.wrap(trim(minimizer.frequencies,
+				minimizer.words));
+	}
+
+	/**
+	 * Creates a graph from a buffer written by {@link #write(Path)}. The
+	 * graph reads straight from the buffer rather than copying it.
+	 * 
+	 * @param buffer
+	 *            the buffer, positioned at the start of the graph
+	 * @throws IOException
+	 *             if the buffer does not hold a graph in the current format
+	 */
+	private Dawg(ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+			throw new IOException("Not a dictionary snapshot.");
+		int version = buffer.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported dictionary snapshot version "
+					+ version + ".");
+		root = buffer.getInt();
+		int states = buffer.getInt();
+		int edges = buffer.getInt();
+		int words = buffer.getInt();
+		long length = HEADER_SIZE + (long) Integer.SIZE / Byte.SIZE
+				* (states * 2L + edges * 2L + words) + states + edges;
+		if (buffer.capacity() < length)
+			throw new IOException("The dictionary snapshot is truncated.");
+
+		stateEdges = slice(buffer, states).asIntBuffer();
+		stateWords = slice(buffer, states).asIntBuffer();
+		edgeTargets = slice(buffer, edges).asIntBuffer();
+		edgeSkips = slice(buffer, edges).asIntBuffer();
+		frequencies = slice(buffer, words).asIntBuffer();
+		stateFinals = buffer.slice();
+		stateFinals.limit(states);
+		buffer.position(buffer.position() + states);
+		edgeLetters = buffer.slice();
+		edgeLetters.limit(edges);
+	}
+
+	/**
+	 * Creates a graph which shares the states and edges of another one, but
+	 * has its own frequencies.
+	 * 
+	 * @param other
+	 *            the graph to copy
+	 */
+	private Dawg(Dawg other) {
+		root = other.root;
+		stateEdges = other.stateEdges;
+		stateWords = other.stateWords;
+		stateFinals = other.stateFinals;
+		edgeLetters = other.edgeLetters;
+		edgeTargets = other.edgeTargets;
+		edgeSkips = other.edgeSkips;
+		longest = other.longest;
+		if (other.frequencies.isReadOnly()) {
+			// The frequencies are still a view of a file, which is copied on
+			// the first change anyway.
+			frequencies = other.frequencies;
+		} else {
+			int[] copy = new int[other.frequencies.limit()];
+			other.frequencies.duplicate().get(copy);
+			frequencies = IntBuffer.wrap(copy);
+		}
+	}
+
+	/**
+	 * Reads a graph from a file written by {@link #write(Path)}. The file is
+	 * mapped into memory rather than read, so this takes about the same time
+	 * no matter how large the dictionary is, and processes which read the
+	 * same file share its pages.
+	 * 
+	 * @param path
+	 *            the file to read
+	 * @return the graph
+	 * @throws IOException
+	 *             if the file cannot be read or is not a dictionary snapshot
+	 */
+	public static Dawg read(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new Dawg(buffer);
+		} finally {
+			// The mapping stays valid after the channel is closed.
+			channel.close();
+		}
+	}
+
+	/**
+	 * Writes this graph, including its frequencies, to a file which can be
+	 * read back with {@link #read(Path)}. The file starts with a header
+	 * holding a magic number, the format version and the number of states,
+	 * edges and words, followed by the arrays of the graph.
+	 * 
+	 * @param path
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		int states = stateEdges.limit();
+		int edges = edgeTargets.limit();
+		int words = frequencies.limit();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(path)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(root);
+			out.writeInt(states);
+			out.writeInt(edges);
+			out.writeInt(words);
+			write(out, stateEdges);
+			write(out, stateWords);
+			write(out, edgeTargets);
+			write(out, edgeSkips);
+			write(out, frequencies);
+			for (int i = 0; i < states; i++)
+				out.writeByte(stateFinals.get(i));
+			for (int i = 0; i < edges; i++)
+				out.writeByte(edgeLetters.get(i));
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Returns the number of states in the graph.
+	 * 
+	 * @return the number of states
+	 */
+	public int size() {
+		return stateEdges.limit();
+	}
+
+	/**
+	 * Returns the number of words in the graph.
+	 * 
+	 * @return the number of words
+	 */
+	public int words() {
+		return frequencies.limit();
+	}
+
+	@Override
+	public int root() {
+		return root;
+	}
+
+	@Override
+	public int firstEdge(int state) {
+		return stateEdges.get(state);
+	}
+
+	@Override
+	public int nextEdge(int edge) {
+		if ((edgeLetters.get(edge) & LAST) != 0)
+			return NONE;
+		return edge + ONE;
+	}
+
+	@Override
+	public int letter(int edge) {
+		return edgeLetters.get(edge) & LETTER;
+	}
+
+	@Override
+	public int target(int edge) {
+		return edgeTargets.get(edge);
+	}
+
+	@Override
+	public int step(int id, int state, int edge) {
+		return id + stateFinals.get(state) + edgeSkips.get(edge);
+	}
+
+	@Override
+	public boolean isWord(int state) {
+		return stateFinals.get(state) != 0;
+	}
+
+	@Override
+	public int getFrequency(int id) {
+		return frequencies.get(id);
+	}
+
+	/**
+	 * Returns the number of letters in the longest word. It is worked out the
+	 * first time it is asked for, with one walk of the graph, so that reading
+	 * a graph from a file does not have to walk it.
+	 * 
+	 * @return the length of the longest word, or 0 if there are no words
+	 */
+	@Override
+	public int longestWord() {
+		if (longest < 0) {
+			int[] lengths = new int[size()];
+			Arrays.fill(lengths, -1);
+			longest = Math.max(0, longest(root, lengths));
+		}
+		return longest;
+	}
+
+	/**
+	 * longest is a private helper method that works out the number of letters
+	 * in the longest word that can be spelled from a state, remembering the
+	 * answer for every state it reaches.
+	 * 
+	 * @param state
+	 *            the state.
+	 * @param lengths
+	 *            the answer for each state reached so far, or -1.
+	 * @return the number of letters, or {@link Trie#NONE} if no word can be
+	 *         spelled from the state.
+	 */
+	private int longest(int state, int[] lengths) {
+		if (lengths[state] >= 0)
+			return lengths[state];
+		int length = isWord(state) ? 0 : NONE;
+		for (int edge = firstEdge(state); edge != NONE; edge = nextEdge(edge)) {
+			int below = longest(target(edge), lengths);
+			if (below != NONE)
+				length = Math.max(length, below + ONE);
+		}
+		if (length >= 0)
+			lengths[state] = length;
+		return length;
+	}
+
+	@Override
+	public void addFrequency(int id, int amount) {
+		if (frequencies.isReadOnly()) {
+			int[] copy = new int[frequencies.limit()];
+			frequencies.duplicate().get(copy);
+			frequencies = IntBuffer.wrap(copy);
+		}
+		frequencies.put(id, frequencies.get(id) + amount);
+	}
+
+	@Override
+	public Dawg copy() {
+		return new Dawg(this);
+	}
+
+	@Override
+	public String toString(int id) {
+		StringBuilder word = new StringBuilder();
+		int state = root;
+		int remaining = id;
+		while (!isWord(state) || remaining > 0) {
+			if (isWord(state))
+				remaining--;
+			// Take the edge whose words contain the one being looked for.
+			int edge = stateEdges.get(state);
+			while (remaining >= stateWords.get(edgeTargets.get(edge))) {
+				remaining -= stateWords.get(edgeTargets.get(edge));
+				edge++;
+			}
+			word.append(Utilities.LETTERS[letter(edge)]);
+			state = edgeTargets.get(edge);
+		}
+		return word.toString();
+	}
+
+	@Override
+	public int spell(int id, byte[] word) {
+		int length = 0;
+		int state = root;
+		int remaining = id;
+		while (!isWord(state) || remaining > 0) {
+			if (isWord(state))
+				remaining--;
+			// Take the edge whose words contain the one being looked for.
+			int edge = stateEdges.get(state);
+			while (remaining >= stateWords.get(edgeTargets.get(edge))) {
+				remaining -= stateWords.get(edgeTargets.get(edge));
+				edge++;
+			}
+			if (length < word.length)
+				word[length] = (byte) letter(edge);
+			length++;
+			state = edgeTargets.get(edge);
+		}
+		return length;
+	}
+
+	/**
+	 * Words cannot be added to a minimized graph.
+	 * 
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public boolean addWord(byte[] letters, int length) {
+		throw new UnsupportedOperationException(
+				"Words cannot be added to a minimized dictionary.");
+	}
+
+	/**
+	 * slice is a private helper method that splits the next block of ints off
+	 * the front of a buffer.
+	 * 
+	 * @param buffer
+	 *            the buffer to split.
+	 * @param ints
+	 *            the number of ints in the block.
+	 * @return a buffer holding just the block.
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int ints) {
+		int bytes = ints * (Integer.SIZE / Byte.SIZE);
+		ByteBuffer slice = buffer.slice();
+		slice.limit(bytes);
+		buffer.position(buffer.position() + bytes);
+		return slice;
+	}
+
+	/**
+	 * write is a private helper method that writes every int in a buffer.
+	 * 
+	 * @param out
+	 *            the stream to write to.
+	 * @param buffer
+	 *            the ints to write.
+	 * @throws IOException
+	 *             if the stream cannot be written.
+	 */
+	private static void write(DataOutputStream out, IntBuffer buffer)
+			throws IOException {
+		for (int i = 0; i < buffer.limit(); i++)
+			out.writeInt(buffer.get(i));
+	}
+
+	/**
+	 * A minimizer collects the states and edges of a graph in growable arrays
+	 * while it is being built.
+	 */
+	private static class Minimizer {
+
+		/** The first edge leaving each state, or {@link Trie#NONE}. */
+		private int[] stateEdges = new int[INITIAL_CAPACITY];
+
+		/** The number of words that can be spelled from each state. */
+		private int[] stateWords = new int[INITIAL_CAPACITY];
+
+		/** 1 for each state which is the end of a word, 0 for the others. */
+		private byte[] stateFinals = new byte[INITIAL_CAPACITY];
+
+		/** The number of states. */
+		private int states;
+
+		/** The letter of each edge, with {@link #LAST} set on the last one. */
+		private byte[] edgeLetters = new byte[INITIAL_CAPACITY];
+
+		/** The state each edge leads to. */
+		private int[] edgeTargets = new int[INITIAL_CAPACITY];
+
+		/** The number of words spelled through the earlier sibling edges. */
+		private int[] edgeSkips = new int[INITIAL_CAPACITY];
+
+		/** The number of edges. */
+		private int edges;
+
+		/** The frequency of each word, by id. */
+		private int[] frequencies = new int[INITIAL_CAPACITY];
+
+		/** The number of words. */
+		private int words;
+
+		/** The states added so far, keyed by their signature. */
+		private final HashMap<String, Integer> registry = new HashMap<String, Integer>();
+
+		/**
+		 * minimize copies the part of a trie below a state into the graph,
+		 * reusing any equivalent state that was already copied. Frequencies
+		 * are recorded before the state's children are visited, so they end
+		 * up in alphabetical order of their words.
+		 * 
+		 * @param source
+		 *            the trie being minimized.
+		 * @param state
+		 *            the state in the trie to copy.
+		 * @param id
+		 *            the id of the path to the state in the trie.
+		 * @return the state in the graph which is equivalent to the given one.
+		 */
+		private int minimize(Trie source, int state, int id) {
+			boolean isWord = source.isWord(state);
+			if (isWord) {
+				frequencies = verifyCapacity(frequencies, words);
+				frequencies[words++] = source.getFrequency(id);
+			}
+
+			// Copy the children first and describe this state by its edges.
+			int[] letters = new int[Utilities.LETTERS.length];
+			int[] targets = new int[Utilities.LETTERS.length];
+			int count = 0;
+			StringBuilder signature = new StringBuilder();
+			signature.append(isWord ? '1' : '0');
+			for (int edge = source.firstEdge(state); edge != NONE; edge = source
+					.nextEdge(edge)) {
+				letters[count] = source.letter(edge);
+				targets[count] = minimize(source, source.target(edge),
+						source.step(id, state, edge));
+				signature.append((char) letters[count]);
+				signature.append((char) (targets[count] >>> 16));
+				signature.append((char) targets[count]);
+				count++;
+			}
+
+			String key = signature.toString();
+			Integer existing = registry.get(key);
+			if (existing != null)
+				return existing;
+
+			// Add a new state and its edges.
+			stateEdges = verifyCapacity(stateEdges, states);
+			stateWords = verifyCapacity(stateWords, states);
+			if (states == stateFinals.length) {
+				byte[] temp = new byte[states * 2];
+				System.arraycopy(stateFinals, 0, temp, 0, states);
+				stateFinals = temp;
+			}
+			int added = states++;
+			stateFinals[added] = (byte) (isWord ? ONE : 0);
+			stateEdges[added] = count == 0 ? NONE : edges;
+			int skipped = 0;
+			for (int i = 0; i < count; i++) {
+				edgeTargets = verifyCapacity(edgeTargets, edges);
+				edgeSkips = verifyCapacity(edgeSkips, edges);
+				if (edges == edgeLetters.length) {
+					byte[] temp = new byte[edges * 2];
+					System.arraycopy(edgeLetters, 0, temp, 0, edges);
+					edgeLetters = temp;
+				}
+				edgeLetters[edges] = (byte) (letters[i] | (i == count - ONE ? LAST
+						: 0));
+				edgeTargets[edges] = targets[i];
+				edgeSkips[edges] = skipped;
+				skipped += stateWords[targets[i]];
+				edges++;
+			}
+			stateWords[added] = (isWord ? ONE : 0) + skipped;
+			registry.put(key, added);
+			return added;
+		}
+	}
+
+	/**
+	 * verifyCapacity is a private helper method that makes sure there is room
+	 * for one more item in an array, doubling its size when it is full.
+	 * 
+	 * @param array
+	 *            the array to check.
+	 * @param size
+	 *            the number of items in the array.
+	 * @return the array, or a larger copy of it.
+	 */
+	private static int[] verifyCapacity(int[] array, int size) {
+		if (size < array.length)
+			return array;
+		return trim(array, array.length * 2);
+	}
+
+	/**
+	 * trim is a private helper method that copies an array into one of a
+	 * given length.
+	 * 
+	 * @param array
+	 *            the array to copy.
+	 * @param length
+	 *            the length of the new array.
+	 * @return the copy.
+	 */
+	private static int[] trim(int[] array, int length) {
+		int[] temp = new int[length];
+		System.arraycopy(array, 0, temp, 0, Math.min(length, array.length));
+		return temp;
+	}
+}
@@ -0,0 +1,38 @@
+package spellcheck.spell;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A dictionary load event is recorded by a flight recording every time a
+ * spell checker reads a dictionary, a corpus or a saved dictionary.
+ * 
+ * @author James Woods
+ */
+@Name("vautexedit.DictionaryLoad")
+@Label("Dictionary Load")
+@Category({ "VauTexEdit", "Spell Checker" })
+@Description("The loading of a dictionary and its word frequencies")
+final class DictionaryLoadEvent extends jdk.jfr.Event {
+
+	/** The path of the dictionary file, or null if none was read. */
+	@Label("Dictionary")
+	String dictionary;
+
+	/** The path of the corpus file, or null if none was read. */
+	@Label("Corpus")
+	String corpus;
+
+	/** The number of words added to the dictionary or read from a file. */
+	@Label("Words Added")
+	long words;
+
+	/**
+	 * The number of nodes of the prefix tree visited, or the number of states
+	 * of a saved dictionary.
+	 */
+	@Label("Nodes Visited")
+	long nodesVisited;
+}
@@ -0,0 +1,68 @@
+package spellcheck.spell;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A dictionary snapshot is an unchangeable copy of the dictionary of a
+ * {@link Checker}, made by {@link Checker#snapshot()}. Because nothing about
+ * it ever changes, any number of threads can look up words and suggestions in
+ * the same snapshot at once without locking, even while the spell checker it
+ * came from is being changed.
+ * 
+ * @author James Woods
+ */
+public final class DictionarySnapshot extends SpellingDictionary {
+
+	/** The prefix tree used to maintain the dictionary. */
+	private final Trie trie;
+
+	/**
+	 * deletes is the symmetric delete index used to find suggestions, or null
+	 * if suggestions are found by searching the prefix tree.
+	 */
+	private final SymmetricDeleteIndex deletes;
+
+	/** The pool which runs the lookups of batches. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a snapshot from a prefix tree and indexes which will never be
+	 * changed.
+	 * 
+	 * @param trie
+	 *            the prefix tree
+	 * @param deletes
+	 *            the symmetric delete index, or null for none
+	 * @param completions
+	 *            the completion index, or null to build one when it is
+	 *            needed
+	 * @param metrics
+	 *            the metrics of the spell checker the snapshot is made from
+	 * @param pool
+	 *            the pool of the spell checker the snapshot is made from
+	 */
+	DictionarySnapshot(Trie trie, SymmetricDeleteIndex deletes,
+			CompletionIndex completions, CheckerMetrics metrics,
+			ForkJoinPool pool) {
+		super(metrics);
+		this.trie = trie;
+		this.deletes = deletes;
+		this.completions = completions;
+		this.pool = pool;
+	}
+
+	@Override
+	Trie trie() {
+		return trie;
+	}
+
+	@Override
+	SymmetricDeleteIndex deletes() {
+		return deletes;
+	}
+
+	@Override
+	ForkJoinPool pool() {
+		return pool;
+	}
+}
@@ -6,6 +6,7 @@ import java.util.Comparator;
  * Heap Sort is an in-place comparison sort which runs in Theta(n log_2(n)) in
  * all cases. Heap Sort has the same asymptotic run times as Merge Sort but only
  * requires a constant amount of additional space. Heap Sort is also not stable.
+ * This implementation sifts elements down with a loop rather than recursion.
  * 
  * @author James Woods
  * @param <T>
@@ -99,8 +100,10 @@ public class HeapSorter<T> extends Sorter<T> {
 
 	/**
 	 * maxHeapifyDown is an overloaded helper method for the maxHeapifyDown
-	 * method that allows for a recursive call to perform the maxHeapifyDown
-	 * process from a given start location.
+	 * method that performs the maxHeapifyDown process from a given start
+	 * location. The element at the start is carried down in a loop, and each
+	 * larger child is moved up into the hole it leaves, so sifting through
+	 * many levels neither grows the stack nor swaps at every level.
 	 * 
 	 * @param array
 	 *            the array which is a max heap except for the root
@@ -110,41 +113,21 @@ public class HeapSorter<T> extends Sorter<T> {
 	 *            the index of the starting node.
 	 */
 	private void maxHeapifyDown(T[] array, int range, int start) {
-
-		// get children indexes
-		int left = start * DOUBLE + OFFSET;
-		int right = start * DOUBLE + DOUBLE;
-
-		int comparisonLeft = 0;
-		int comparisonRight = 0;
-
-		T largest = array[start];
+		T element = array[start];
 		int index = start;
-		// make comparison between the current value and
-		// its children.
-		if (left < range) {
-			comparisonLeft = comparator.compare(array[start], array[left]);
-			if (comparisonLeft < 0) {
-				index = left;
-				largest = array[left];
-			}
-
+		int left;
+		while ((left = index * DOUBLE + OFFSET) < range) {
+			// find the larger of the children.
+			int largest = left;
+			int right = left + OFFSET;
+			if (right < range
+					&& comparator.compare(array[left], array[right]) < 0)
+				largest = right;
+			if (comparator.compare(element, array[largest]) >= 0)
+				break;
+			array[index] = array[largest];
+			index = largest;
 		}
-		if (right < range) {
-			comparisonRight = comparator.compare(largest, array[right]);
-			if (comparisonRight < 0) {
-				index = right;
-			}
-
-		}
-
-		if (index != start) {
-			// make the swap.
-			T temp = array[index];
-			array[index] = array[start];
-			array[start] = temp;
-			maxHeapifyDown(array, range, index);
-		}
-
+		array[index] = element;
 	}
 }
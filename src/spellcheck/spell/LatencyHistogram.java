@@ -0,0 +1,168 @@
+package spellcheck.spell;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram counts how long operations took in buckets whose
+ * bounds double from one bucket to the next, so a few dozen counters cover
+ * everything from a nanosecond to hours with at most a factor of two error.
+ * Recording a latency only increments one {@link LongAdder}, so any number of
+ * threads can record at once without slowing each other down.
+ * 
+ * @author James Woods
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The number of buckets, one for each bit of a long. */
+	private static final int BUCKETS = Long.SIZE;
+
+	/** The number of latencies in each bucket. */
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	/** The sum of all the latencies, in nanoseconds. */
+	private final LongAdder total = new LongAdder();
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKETS; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Counts one latency.
+	 * 
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		buckets[bucket(nanos)].increment();
+		total.add(nanos);
+	}
+
+	/**
+	 * Returns the number of latencies counted.
+	 * 
+	 * @return the number of latencies
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets)
+			count += bucket.sum();
+		return count;
+	}
+
+	/**
+	 * Returns the mean of the latencies counted.
+	 * 
+	 * @return the mean latency in nanoseconds, or 0 if none have been counted
+	 */
+	public long getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : total.sum() / count;
+	}
+
+	/**
+	 * Returns a latency that the given fraction of the latencies counted are
+	 * no longer than. The answer is the upper bound of the bucket the
+	 * percentile falls in, so it is never less than the true percentile and
+	 * at most twice it.
+	 * 
+	 * @param fraction
+	 *            the fraction of latencies, such as 0.99 for the 99th
+	 *            percentile
+	 * @return the latency in nanoseconds, or 0 if none have been counted
+	 * @throws IllegalArgumentException
+	 *             if the fraction is not between 0 and 1
+	 */
+	public long getPercentile(double fraction) {
+		if (!(fraction >= 0 && fraction <= 1))
+			throw new IllegalArgumentException(
+					"The fraction must be between 0 and 1.");
+
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			count += counts[i];
+		}
+		if (count == 0)
+			return 0;
+
+		long rank = Math.max(ONE, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return upperBound(i);
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the number of latencies in a bucket. Bucket 0 holds latencies
+	 * of 0 and 1 nanoseconds and bucket i holds latencies from 2^i up to
+	 * 2^(i + 1) - 1 nanoseconds.
+	 * 
+	 * @param bucket
+	 *            the bucket, from 0 to 63
+	 * @return the number of latencies in the bucket
+	 * @throws IndexOutOfBoundsException
+	 *             if there is no such bucket
+	 */
+	public long getCount(int bucket) {
+		return buckets[bucket].sum();
+	}
+
+	/**
+	 * Forgets every latency counted. Latencies recorded while the histogram
+	 * is being reset may or may not be forgotten.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets)
+			bucket.reset();
+		total.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + " mean=" + getMean() + "ns p50<="
+				+ getPercentile(0.5) + "ns p99<=" + getPercentile(0.99)
+				+ "ns max<=" + getPercentile(1) + "ns";
+	}
+
+	/**
+	 * bucket is a private helper method that finds the bucket a latency
+	 * belongs in.
+	 * 
+	 * @param nanos
+	 *            the latency, which is not negative.
+	 * @return the bucket.
+	 */
+	private static int bucket(long nanos) {
+		return nanos <= ONE ? 0 : BUCKETS - ONE
+				- Long.numberOfLeadingZeros(nanos);
+	}
+
+	/**
+	 * upperBound is a private helper method that finds the longest latency a
+	 * bucket holds.
+	 * 
+	 * @param bucket
+	 *            the bucket.
+	 * @return the longest latency in nanoseconds.
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket >= BUCKETS - ONE - ONE)
+			return Long.MAX_VALUE;
+		return (1L << (bucket + ONE)) - ONE;
+	}
+}
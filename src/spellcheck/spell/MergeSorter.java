@@ -0,0 +1,192 @@
+package spellcheck.spell;
+
+import java.util.Comparator;
+
+/**
+ * Merge Sort is a stable comparison sort which runs in O(n log_2(n)) in all
+ * cases and needs room for half of the array besides. This version works in
+ * the manner of TimSort: short runs are first put in order with a binary
+ * insertion sort, which is the fastest way to sort a few elements, and the
+ * runs are then merged bottom up without any recursion. Two runs which are
+ * already in order are not merged at all, so an array which is sorted or
+ * nearly sorted takes little more than one pass.
+ * 
+ * Elements which compare as equal keep the order they had, which Heap Sort
+ * does not promise. A merge sorter keeps nothing between sorts, so one sorter
+ * can be used by several threads at once.
+ * 
+ * @author James Woods
+ * @param <T>
+ *            the type of element in the arrays that will be sorted
+ */
+public class MergeSorter<T> extends Sorter<T> {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/**
+	 * DOUBLE is used to find the middle of a range and the length of the
+	 * next runs to merge.
+	 */
+	private static final int DOUBLE = 2;
+
+	/**
+	 * RUN is the length of the runs which are sorted by insertion before any
+	 * merging is done.
+	 */
+	static final int RUN = 32;
+
+	/**
+	 * Creates a new sorter which uses Merge Sort to sort arrays.
+	 * 
+	 * @param comparator
+	 *            the comparator which will specify the correct order of
+	 *            elements
+	 */
+	public MergeSorter(Comparator<T> comparator) {
+		super(comparator);
+	}
+
+	/**
+	 * Creates a new sorter which uses Merge Sort to sort arrays with a
+	 * {@link DefaultComparator}.
+	 */
+	public MergeSorter() {
+		super();
+	}
+
+	/**
+	 * Rearranges an array so that the elements are in order from smallest to
+	 * largest, keeping equal elements in the order they were in.
+	 * 
+	 * @param array
+	 *            the array to be rearranged
+	 */
+	public void sort(T[] array) {
+		sort(array, 0, array.length);
+	}
+
+	/**
+	 * Rearranges part of an array so that its elements are in order from
+	 * smallest to largest, keeping equal elements in the order they were in.
+	 * Elements outside the range will not be moved.
+	 * 
+	 * @param array
+	 *            the array to be rearranged
+	 * @param from
+	 *            the index of the first element to sort
+	 * @param to
+	 *            the index after the last element to sort
+	 * @throws IndexOutOfBoundsException
+	 *             if the range does not lie within the array
+	 */
+	@Override
+	public void sort(T[] array, int from, int to) {
+		checkRange(array, from, to);
+
+		for (int start = from; start < to; start += RUN)
+			insertionSort(array, start, Math.min(start + RUN, to));
+
+		if (to - from <= RUN)
+			return;
+		@SuppressWarnings("unchecked")
+		T[] buffer = (T[]) new Object[(to - from) / DOUBLE];
+		for (int width = RUN; width < to - from; width *= DOUBLE) {
+			for (int start = from; start < to - width; start += width * DOUBLE)
+				merge(array, start, start + width,
+						(int) Math.min((long) start + width * DOUBLE, to),
+						buffer, 0);
+		}
+	}
+
+	/**
+	 * Merges two neighbouring runs which are each in order, keeping elements
+	 * of the first run ahead of equal elements of the second. Only the
+	 * shorter run is copied out, and the merge works from the end that run
+	 * sits at.
+	 * 
+	 * @param array
+	 *            the array holding the runs
+	 * @param from
+	 *            the index of the first element of the first run
+	 * @param middle
+	 *            the index of the first element of the second run
+	 * @param to
+	 *            the index after the last element of the second run
+	 * @param buffer
+	 *            an array with room for the shorter run from offset on
+	 * @param offset
+	 *            the position in the buffer the shorter run is copied to
+	 */
+	void merge(T[] array, int from, int middle, int to, T[] buffer,
+			int offset) {
+		// The runs are already in order if they meet in order.
+		if (comparator.compare(array[middle - ONE], array[middle]) <= 0)
+			return;
+
+		if (middle - from <= to - middle) {
+			int end = offset + middle - from;
+			System.arraycopy(array, from, buffer, offset, middle - from);
+			int left = offset;
+			int right = middle;
+			int out = from;
+			while (left < end && right < to) {
+				if (comparator.compare(array[right], buffer[left]) < 0)
+					array[out++] = array[right++];
+				else
+					array[out++] = buffer[left++];
+			}
+			// Whatever is left of the second run is already in place.
+			System.arraycopy(buffer, left, array, out, end - left);
+		} else {
+			System.arraycopy(array, middle, buffer, offset, to - middle);
+			int left = middle - ONE;
+			int right = offset + to - middle - ONE;
+			int out = to - ONE;
+			while (left >= from && right >= offset) {
+				if (comparator.compare(buffer[right], array[left]) < 0)
+					array[out--] = array[left--];
+				else
+					array[out--] = buffer[right--];
+			}
+			// Whatever is left of the first run is already in place.
+			System.arraycopy(buffer, offset, array, from, right + ONE
+					- offset);
+		}
+	}
+
+	/**
+	 * insertionSort is a private helper method that sorts a short range with
+	 * a binary insertion sort, which finds the place of each element with a
+	 * binary search among the elements before it and then moves the larger
+	 * ones up in one copy.
+	 * 
+	 * @param array
+	 *            the array holding the range.
+	 * @param from
+	 *            the index of the first element of the range.
+	 * @param to
+	 *            the index after the last element of the range.
+	 */
+	private void insertionSort(T[] array, int from, int to) {
+		for (int i = from + ONE; i < to; i++) {
+			T element = array[i];
+			if (comparator.compare(array[i - ONE], element) <= 0)
+				continue;
+			int low = from;
+			int high = i - ONE;
+			// The element goes after every element it is not smaller than.
+			while (low < high) {
+				int middle = (low + high) >>> ONE;
+				if (comparator.compare(element, array[middle]) < 0)
+					high = middle;
+				else
+					low = middle + ONE;
+			}
+			System.arraycopy(array, low, array, low + ONE, i - low);
+			array[low] = element;
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package spellcheck.spell;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A parallel sorter splits an array into chunks, sorts the chunks at the same
+ * time with fork/join tasks run by a {@link ForkJoinPool}, and merges them
+ * back together. The chunks are sorted with another sorter, a
+ * {@link MergeSorter} unless one is given, and the merges keep elements of an
+ * earlier chunk ahead of equal elements of a later one, so the sort is stable
+ * whenever the chunk sorter is. Halves of the array are merged as soon as
+ * both have been sorted, so merges of different parts of the array also run
+ * at the same time, and only the last merge runs on one thread.
+ * 
+ * Arrays too short to be worth splitting, and every array when the pool has
+ * only one thread, are sorted on the calling thread by the chunk sorter.
+ * A parallel sorter keeps nothing between sorts, so one sorter can be used by
+ * several threads at once.
+ * 
+ * @author James Woods
+ * @param <T>
+ *            the type of element in the arrays that will be sorted
+ */
+public class ParallelSorter<T> extends Sorter<T> {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/**
+	 * MIN_CHUNK is the smallest number of elements sorted by one task.
+	 * Handing out a task costs about as much as sorting a few thousand
+	 * elements.
+	 */
+	static final int MIN_CHUNK = 8192;
+
+	/**
+	 * CHUNKS_PER_THREAD is the number of chunks made for each thread of the
+	 * pool, so that a thread which finishes early can take work from the
+	 * others.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** The sorter which sorts each chunk. */
+	private final Sorter<T> chunks;
+
+	/** The sorter whose merge joins sorted chunks. */
+	private final MergeSorter<T> merger;
+
+	/** The pool which runs the tasks. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a new sorter which sorts chunks with Merge Sort on the common
+	 * pool.
+	 * 
+	 * @param comparator
+	 *            the comparator which will specify the correct order of
+	 *            elements
+	 */
+	public ParallelSorter(Comparator<T> comparator) {
+		this(new MergeSorter<T>(comparator), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new sorter which sorts chunks with the given sorter on the
+	 * given pool. The order is the one specified by the comparator of the
+	 * chunk sorter.
+	 * 
+	 * @param chunks
+	 *            the sorter which sorts each chunk, such as a
+	 *            {@link HeapSorter} or, for a stable sort, a
+	 *            {@link MergeSorter}
+	 * @param pool
+	 *            the pool which runs the tasks
+	 */
+	public ParallelSorter(Sorter<T> chunks, ForkJoinPool pool) {
+		super(chunks.comparator);
+		this.chunks = chunks;
+		this.merger = new MergeSorter<T>(comparator);
+		this.pool = pool;
+	}
+
+	/**
+	 * Rearranges an array so that the elements are in order from smallest to
+	 * largest, using all the threads of the pool.
+	 * 
+	 * @param array
+	 *            the array to be rearranged
+	 */
+	public void sort(T[] array) {
+		sort(array, 0, array.length);
+	}
+
+	/**
+	 * Rearranges part of an array so that its elements are in order from
+	 * smallest to largest, using all the threads of the pool. Elements outside
+	 * the range will not be moved.
+	 * 
+	 * @param array
+	 *            the array to be rearranged
+	 * @param from
+	 *            the index of the first element to sort
+	 * @param to
+	 *            the index after the last element to sort
+	 * @throws IndexOutOfBoundsException
+	 *             if the range does not lie within the array
+	 */
+	@Override
+	public void sort(T[] array, int from, int to) {
+		checkRange(array, from, to);
+		int chunk = Math.max(MIN_CHUNK, (to - from)
+				/ (pool.getParallelism() * CHUNKS_PER_THREAD));
+		if (to - from <= chunk || pool.getParallelism() <= ONE) {
+			chunks.sort(array, from, to);
+			return;
+		}
+		// Each merge copies at most half of its range into the same part of
+		// the buffer, so merges of different ranges never share any of it.
+		@SuppressWarnings("unchecked")
+		T[] buffer = (T[]) new Object[to - from];
+		pool.invoke(new SortTask(array, buffer, from, from, to, chunk));
+	}
+
+	/**
+	 * A sort task sorts one range of the array, by sorting it with the chunk
+	 * sorter if it is short enough or else by sorting its two halves in
+	 * separate tasks and merging them.
+	 * 
+	 * @author James Woods
+	 */
+	private final class SortTask extends RecursiveAction {
+
+		/** Unique identifier for serialization. */
+		private static final long serialVersionUID = 1L;
+
+		/** The array being sorted. */
+		private final T[] array;
+
+		/** The buffer used by the merges. */
+		private final T[] buffer;
+
+		/** The index of the element the buffer starts at. */
+		private final int base;
+
+		/** The index of the first element of the range. */
+		private final int from;
+
+		/** The index after the last element of the range. */
+		private final int to;
+
+		/** The largest range sorted without splitting it. */
+		private final int chunk;
+
+		/**
+		 * Creates a task which sorts a range.
+		 * 
+		 * @param array
+		 *            the array being sorted
+		 * @param buffer
+		 *            the buffer used by the merges
+		 * @param base
+		 *            the index of the element the buffer starts at
+		 * @param from
+		 *            the index of the first element of the range
+		 * @param to
+		 *            the index after the last element of the range
+		 * @param chunk
+		 *            the largest range sorted without splitting it
+		 */
+		public SortTask(T[] array, T[] buffer, int base, int from, int to,
+				int chunk) {
+			this.array = array;
+			this.buffer = buffer;
+			this.base = base;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunk) {
+				chunks.sort(array, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SortTask(array, buffer, base, from, middle, chunk),
+					new SortTask(array, buffer, base, middle, to, chunk));
+			merger.merge(array, from, middle, to, buffer, from - base);
+		}
+	}
+}
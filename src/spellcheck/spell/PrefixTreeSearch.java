@@ -0,0 +1,232 @@
+package spellcheck.spell;
+
+import java.util.ArrayList;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A prefix tree search finds the words of a prefix tree within an edit
+ * distance of a string with a depth-first walk. Each level of the walk
+ * carries one row of the Levenshtein table between the string and the path to
+ * the current state, so every path is visited at most once and a subtree is
+ * skipped as soon as the smallest value in its row exceeds the limit of the
+ * collector, which shrinks from the largest distance asked for once enough
+ * close words have been found.
+ * 
+ * The states near the root can be split off into separate fork/join tasks,
+ * one for each subtree worth searching, each with its own
+ * {@link CandidateCollector}. The collectors are merged as the tasks finish.
+ * A collector only lowers its limit once it holds enough close words itself,
+ * so no task prunes a word another task would have kept, and the result is
+ * the same as searching on one thread.
+ * 
+ * The trie is only read while searching, so it must not be changed until the
+ * search has finished.
+ * 
+ * @author James Woods
+ */
+final class PrefixTreeSearch extends RecursiveTask<CandidateCollector> {
+
+	/** Unique identifier for serialization. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The prefix tree to search. */
+	private final Trie trie;
+
+	/** The letter indexes of the string to find words for. */
+	private final int[] letters;
+
+	/** The Levenshtein rows, where row depth belongs to state. */
+	private final int[][] rows;
+
+	/** The largest edit distance of a word. */
+	private final int maxDistance;
+
+	/** The number of words that will be returned in the end. */
+	private final int wanted;
+
+	/** States shallower than this are split into separate tasks. */
+	private final int splitDepth;
+
+	/** The depth of the state the search starts from. */
+	private final int depth;
+
+	/** The state the search starts from. */
+	private final int state;
+
+	/** The id of the path to the state the search starts from. */
+	private final int id;
+
+	/** The collector of words. */
+	private final CandidateCollector words;
+
+	/** The number of nodes visited by the search. */
+	int nodesVisited;
+
+	/**
+	 * Creates a search of a whole prefix tree.
+	 * 
+	 * @param trie
+	 *            the prefix tree to search
+	 * @param letters
+	 *            the letter indexes of the string to find words for
+	 * @param maxDistance
+	 *            the largest edit distance of a word
+	 * @param wanted
+	 *            the number of words that will be returned in the end
+	 * @param words
+	 *            the collector the words are added to
+	 * @param splitDepth
+	 *            the depth down to which states are split into separate
+	 *            tasks, or 0 to search on one thread
+	 */
+	public PrefixTreeSearch(Trie trie, int[] letters, int maxDistance,
+			int wanted, CandidateCollector words, int splitDepth) {
+		this.trie = trie;
+		this.letters = letters;
+		this.maxDistance = maxDistance;
+		this.wanted = wanted;
+		this.words = words;
+		this.splitDepth = splitDepth;
+		this.depth = 0;
+		this.state = trie.root();
+		this.id = Trie.ROOT_ID;
+
+		// Set up one Levenshtein row for every depth the search can reach.
+		// Nodes deeper than the string plus the edit distance are never
+		// descended into, but their rows are still filled in.
+		rows = new int[letters.length + maxDistance + ONE + ONE][letters.length + ONE];
+		for (int i = 0; i <= letters.length; i++)
+			rows[0][i] = i;
+	}
+
+	/**
+	 * Creates a search of the subtree below a state, with its own rows and
+	 * collector.
+	 * 
+	 * @param parent
+	 *            the search the state was found by
+	 * @param state
+	 *            the state
+	 * @param id
+	 *            the id of the path to the state
+	 * @param row
+	 *            the Levenshtein row of the state
+	 */
+	private PrefixTreeSearch(PrefixTreeSearch parent, int state, int id,
+			int[] row) {
+		this.trie = parent.trie;
+		this.letters = parent.letters;
+		this.maxDistance = parent.maxDistance;
+		this.wanted = parent.wanted;
+		this.words = new CandidateCollector(maxDistance, wanted);
+		this.splitDepth = parent.splitDepth;
+		this.depth = parent.depth + ONE;
+		this.state = state;
+		this.id = id;
+		this.rows = new int[parent.rows.length][];
+		for (int i = depth + ONE; i < rows.length; i++)
+			rows[i] = new int[letters.length + ONE];
+		rows[depth] = row;
+	}
+
+	@Override
+	protected CandidateCollector compute() {
+		if (depth >= splitDepth) {
+			search(depth, state, id);
+			return words;
+		}
+
+		int[] previous = rows[depth];
+		ArrayList<PrefixTreeSearch> tasks = new ArrayList<PrefixTreeSearch>();
+		for (int edge = trie.firstEdge(state); edge != Trie.NONE; edge = trie
+				.nextEdge(edge)) {
+			int child = trie.target(edge);
+			int childId = trie.step(id, state, edge);
+			nodesVisited++;
+
+			int[] row = new int[letters.length + ONE];
+			int rowMinimum = fill(previous, row, trie.letter(edge));
+			int distance = row[letters.length];
+			if (distance <= words.limit() && trie.isWord(child))
+				words.add(childId, distance);
+			if (rowMinimum <= words.limit())
+				tasks.add(new PrefixTreeSearch(this, child, childId, row));
+		}
+
+		invokeAll(tasks);
+		for (PrefixTreeSearch task : tasks) {
+			words.addAll(task.join());
+			nodesVisited += task.nodesVisited;
+		}
+		return words;
+	}
+
+	/**
+	 * search is a private helper method that walks the subtree below a state
+	 * on this thread and adds found words within the edit distance to the
+	 * collector.
+	 * 
+	 * @param depth
+	 *            the depth of the current state in the prefix tree.
+	 * @param current
+	 *            the current state in the prefix tree.
+	 * @param id
+	 *            the id of the path to the current state.
+	 */
+	private void search(int depth, int current, int id) {
+		int[] previous = rows[depth];
+		int[] row = rows[depth + ONE];
+
+		for (int edge = trie.firstEdge(current); edge != Trie.NONE; edge = trie
+				.nextEdge(edge)) {
+			int child = trie.target(edge);
+			int childId = trie.step(id, current, edge);
+			nodesVisited++;
+
+			// Fill in the row for the child.
+			int rowMinimum = fill(previous, row, trie.letter(edge));
+
+			// If the child is a word within the edit distance add it.
+			int distance = row[letters.length];
+			if (distance <= words.limit() && trie.isWord(child))
+				words.add(childId, distance);
+
+			// Only descend if some word below the child can still be close
+			// enough.
+			if (rowMinimum <= words.limit())
+				search(depth + ONE, child, childId);
+		}
+	}
+
+	/**
+	 * fill is a private helper method that works out the Levenshtein row of a
+	 * state from the row of its parent.
+	 * 
+	 * @param previous
+	 *            the row of the parent.
+	 * @param row
+	 *            the row to fill in.
+	 * @param letter
+	 *            the letter index of the edge to the state.
+	 * @return the smallest value in the row.
+	 */
+	private int fill(int[] previous, int[] row, int letter) {
+		row[0] = previous[0] + ONE;
+		int rowMinimum = row[0];
+		for (int i = 1; i <= letters.length; i++) {
+			int substitute = previous[i - ONE]
+					+ (letters[i - ONE] == letter ? 0 : ONE);
+			int insert = previous[i] + ONE;
+			int delete = row[i - ONE] + ONE;
+			row[i] = Math.min(substitute, Math.min(insert, delete));
+			if (row[i] < rowMinimum)
+				rowMinimum = row[i];
+		}
+		return rowMinimum;
+	}
+}
@@ -1,5 +1,6 @@
 package spellcheck.spell;
 
+import java.util.Arrays;
 import java.util.Comparator;
 
 /**
@@ -41,6 +42,38 @@ public abstract class Sorter<T> {
 	 */
 	public abstract void sort(T[] array);
 	
+	/**
+	 * Rearranges part of an array so that its elements are in order from
+	 * smallest to largest.  Elements outside the range will not be moved.
+	 * This version sorts a copy of the range and copies it back; sorters
+	 * which can work on a range in place override it.
+	 * 
+	 * @param array the array to be rearranged
+	 * @param from the index of the first element to sort
+	 * @param to the index after the last element to sort
+	 * @throws IndexOutOfBoundsException if the range does not lie within the array
+	 */
+	public void sort(T[] array, int from, int to){
+		checkRange(array, from, to);
+		T[] range = Arrays.copyOfRange(array, from, to);
+		sort(range);
+		System.arraycopy(range, 0, array, from, range.length);
+	}
+	
+	/**
+	 * Makes sure a range lies within an array.
+	 * 
+	 * @param array the array
+	 * @param from the index of the first element of the range
+	 * @param to the index after the last element of the range
+	 * @throws IndexOutOfBoundsException if the range does not lie within the array
+	 */
+	static void checkRange(Object[] array, int from, int to){
+		if(from < 0 || to > array.length || from > to)
+			throw new IndexOutOfBoundsException("Cannot sort from " + from
+					+ " to " + to + " of " + array.length + " elements.");
+	}
+	
 	/**
 	 * Returns a string representation of an array for debugging purposes.
 	 * 
@@ -0,0 +1,28 @@
+package spellcheck.spell;
+
+import java.util.Comparator;
+
+/**
+ * SpellingComparator allows comparison of Suggestion objects for use in a
+ * sorting algorithm where editDistance is the first criterion, frequency the
+ * second, and alphabetical order the third.
+ * 
+ * @author James Woods
+ */
+public class SpellingComparator implements Comparator<Suggestion> {
+
+	/**
+	 * compare compares o1 to o2 and returns a positive value if o1 is greater,
+	 * a negative if it is smaller and a zero if the values are the same.
+	 */
+	public int compare(Suggestion o1, Suggestion o2) {
+
+		if (o1.editDistance != o2.editDistance)
+			return o1.editDistance - o2.editDistance;
+		else if (o1.frequency != o2.frequency)
+			return o2.frequency - o1.frequency;
+		else
+			return o1.string.compareTo(o2.string);
+
+	}
+}
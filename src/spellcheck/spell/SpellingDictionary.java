@@ -0,0 +1,1033 @@
+package spellcheck.spell;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A spelling dictionary is a set of correctly spelled words, each with the
+ * frequency it was observed with in some corpus of literature, that can be
+ * searched for suggested spelling corrections. This class holds everything
+ * which only reads the dictionary, so that it works the same for a
+ * {@link Checker}, which can be changed, and a {@link DictionarySnapshot},
+ * which cannot.
+ * 
+ * @author James Woods
+ */
+public abstract class SpellingDictionary {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/**
+	 * When searching for suggestions, the spell checker will only consider
+	 * words which are this far away from the given string in terms of
+	 * Levenshtein distance.
+	 */
+	public static final int MAX_EDIT_DISTANCE = 2;
+
+	/**
+	 * SHORT_WORD is the length up to which
+	 * {@link #getAdaptiveSuggestions(String, int)} only looks for words one
+	 * edit away.
+	 */
+	private static final int SHORT_WORD = 4;
+
+	/**
+	 * LONG_WORD is the length from which
+	 * {@link #getAdaptiveSuggestions(String, int)} looks for words up to
+	 * three edits away.
+	 */
+	private static final int LONG_WORD = 9;
+
+	/**
+	 * BATCH_SIZE is the number of strings each task of
+	 * {@link #checkAll(Collection, ExecutorService)} finds suggestions for.
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	/**
+	 * PARALLEL_WORK is the smallest product of the length of a string and one
+	 * more than the edit distance for which
+	 * {@link #getSuggestionsInParallel(String, int, int, ForkJoinPool)}
+	 * splits the search into tasks. Smaller searches finish sooner on one
+	 * thread than it takes to hand out the tasks.
+	 */
+	private static final int PARALLEL_WORK = 24;
+
+	/**
+	 * SPLIT_DEPTH is the depth down to which a parallel search gives every
+	 * state its own task.
+	 */
+	private static final int SPLIT_DEPTH = 2;
+
+	/**
+	 * RADIX_SORT_SIZE is the smallest number of suggestions for which a
+	 * {@link SuggestionSorter} is faster than a {@link MergeSorter}. Below it,
+	 * setting up the buckets costs more than the comparisons it saves.
+	 */
+	static final int RADIX_SORT_SIZE = 48;
+
+	/** The sorter used for short arrays of suggestions. */
+	private static final Sorter<Suggestion> MERGE_SORTER = new MergeSorter<Suggestion>(
+			new SpellingComparator());
+
+	/** The sorter used for long arrays of suggestions. */
+	private static final Sorter<Suggestion> SUGGESTION_SORTER = new SuggestionSorter();
+
+	/**
+	 * PARALLEL_SORT_SIZE is the smallest number of suggestions, such as a
+	 * report on a whole set of documents, which is sorted on more than one
+	 * thread.
+	 */
+	static final int PARALLEL_SORT_SIZE = 1 << 17;
+
+	/** The sorter used for very long arrays of suggestions. */
+	private static final Sorter<Suggestion> PARALLEL_SORTER = new ParallelSorter<Suggestion>(
+			SUGGESTION_SORTER, ForkJoinPool.commonPool());
+
+	/**
+	 * metrics counts how much work is done during various dictionary
+	 * operations, where work is mostly measured by the number of nodes
+	 * visited, which is increased every time a node is reached from its
+	 * parent.
+	 */
+	final CheckerMetrics metrics;
+
+	/**
+	 * completions is the index of the most frequent words under each prefix,
+	 * or null until it is first needed.
+	 */
+	volatile CompletionIndex completions;
+
+	/**
+	 * Creates a dictionary which counts its work in metrics of its own.
+	 */
+	SpellingDictionary() {
+		this(new CheckerMetrics());
+	}
+
+	/**
+	 * Creates a dictionary which counts its work in the given metrics.
+	 * 
+	 * @param metrics
+	 *            the metrics, which may be shared with other dictionaries
+	 */
+	SpellingDictionary(CheckerMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the metrics which count the work done by this dictionary: the
+	 * nodes visited, the candidates generated and thrown away, the time spent
+	 * ranking, and how long queries and loads took. A snapshot adds to the
+	 * metrics of the spell checker it was made from.
+	 * 
+	 * @return the metrics
+	 */
+	public CheckerMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the prefix tree used to maintain the dictionary.
+	 * 
+	 * @return the prefix tree
+	 */
+	abstract Trie trie();
+
+	/**
+	 * Returns the symmetric delete index used to find suggestions.
+	 * 
+	 * @return the index, or null if suggestions are found by searching the
+	 *         prefix tree
+	 */
+	abstract SymmetricDeleteIndex deletes();
+
+	/**
+	 * Returns the pool which runs the lookups of
+	 * {@link #checkAll(Collection)}. It is shared by every batch and never
+	 * shut down.
+	 * 
+	 * @return the common pool, unless the dictionary was given one of its own
+	 */
+	ForkJoinPool pool() {
+		return ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Returns the index of the most frequent words under each prefix, building
+	 * it the first time it is needed.
+	 * 
+	 * @return the completion index
+	 */
+	CompletionIndex completions() {
+		CompletionIndex index = completions;
+		if (index == null) {
+			synchronized (this) {
+				if (completions == null)
+					completions = CompletionIndex.build(trie());
+				index = completions;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns a number which changes every time a word is added to this
+	 * dictionary or a frequency in it changes, so that anything derived from
+	 * the dictionary can tell when it is out of date.
+	 * 
+	 * @return the version of the dictionary
+	 */
+	long version() {
+		return 0;
+	}
+
+	/**
+	 * Checks whether or not a given word is part of this dictionary.
+	 * 
+	 * @param word
+	 *            the word to check
+	 * @return true if the word is in this dictionary, false otherwise
+	 */
+	public boolean isWord(String word) {
+		return isWord((CharSequence) word);
+	}
+
+	/**
+	 * Checks whether or not a given sequence of letters is a word in this
+	 * dictionary, without copying the letters or creating any objects, so a
+	 * document can be checked one token at a time straight from its text.
+	 * 
+	 * @param word
+	 *            the word to check
+	 * @return true if the word is in this dictionary, false otherwise
+	 */
+	public boolean isWord(CharSequence word) {
+		if (find(trie(), word) != Trie.NONE)
+			return true;
+		else
+			return false;
+	}
+
+	/**
+	 * Checks whether or not the letters in part of an array are a word in
+	 * this dictionary, without copying the letters or creating any objects.
+	 * 
+	 * @param buffer
+	 *            the array holding the word
+	 * @param offset
+	 *            the position of the first letter of the word
+	 * @param length
+	 *            the number of letters in the word
+	 * @return true if the word is in this dictionary, false otherwise
+	 * @throws IndexOutOfBoundsException
+	 *             if the word does not lie within the array
+	 */
+	public boolean isWord(char[] buffer, int offset, int length) {
+		checkRange(buffer, offset, length);
+		if (find(trie(), buffer, offset, length) != Trie.NONE)
+			return true;
+		else
+			return false;
+	}
+
+	/**
+	 * Returns the frequency of a given word as it was observed in the corpus
+	 * used to initialize this spell checker.
+	 * 
+	 * @param word
+	 *            the word for which the frequency will be checked
+	 * @return the frequency of the word in the corpus
+	 * @throws IllegalArgumentException
+	 *             if the word is not in this dictionary
+	 */
+	public int getFrequency(String word) {
+		return getFrequency((CharSequence) word);
+	}
+
+	/**
+	 * Returns the frequency of a given sequence of letters as it was observed
+	 * in the corpus, without copying the letters or creating any objects.
+	 * 
+	 * @param word
+	 *            the word for which the frequency will be checked
+	 * @return the frequency of the word in the corpus
+	 * @throws IllegalArgumentException
+	 *             if the word is not in this dictionary
+	 */
+	public int getFrequency(CharSequence word) {
+		Trie trie = trie();
+		int temp = find(trie, word);
+		if (temp == Trie.NONE)
+			throw new IllegalArgumentException();
+
+		return trie.getFrequency(temp);
+	}
+
+	/**
+	 * Returns the frequency of the letters in part of an array as it was
+	 * observed in the corpus, without copying the letters or creating any
+	 * objects.
+	 * 
+	 * @param buffer
+	 *            the array holding the word
+	 * @param offset
+	 *            the position of the first letter of the word
+	 * @param length
+	 *            the number of letters in the word
+	 * @return the frequency of the word in the corpus
+	 * @throws IllegalArgumentException
+	 *             if the word is not in this dictionary
+	 * @throws IndexOutOfBoundsException
+	 *             if the word does not lie within the array
+	 */
+	public int getFrequency(char[] buffer, int offset, int length) {
+		checkRange(buffer, offset, length);
+		Trie trie = trie();
+		int temp = find(trie, buffer, offset, length);
+		if (temp == Trie.NONE)
+			throw new IllegalArgumentException();
+
+		return trie.getFrequency(temp);
+	}
+
+	/**
+	 * find is a helper method that follows the letters of a word down
+	 * the prefix tree.
+	 * 
+	 * @param trie
+	 *            the prefix tree to search.
+	 * @param word
+	 *            the word to find.
+	 * @return the id of the word, or {@link Trie#NONE} if it is not a word in
+	 *         this dictionary.
+	 */
+	int find(Trie trie, CharSequence word) {
+		int state = trie.root();
+		int id = Trie.ROOT_ID;
+		for (int i = 0; i < word.length(); i++) {
+			int edge = trie.edge(state, Utilities.indexOf(word.charAt(i)));
+			if (edge == Trie.NONE) {
+				metrics.visit(i + ONE);
+				return Trie.NONE;
+			}
+			id = trie.step(id, state, edge);
+			state = trie.target(edge);
+		}
+		metrics.visit(word.length());
+		return trie.isWord(state) ? id : Trie.NONE;
+	}
+
+	/**
+	 * find is a helper method that follows the letters in part of an array
+	 * down the prefix tree.
+	 * 
+	 * @param trie
+	 *            the prefix tree to search.
+	 * @param buffer
+	 *            the array holding the word.
+	 * @param offset
+	 *            the position of the first letter of the word.
+	 * @param length
+	 *            the number of letters in the word.
+	 * @return the id of the word, or {@link Trie#NONE} if it is not a word in
+	 *         this dictionary.
+	 */
+	int find(Trie trie, char[] buffer, int offset, int length) {
+		int state = trie.root();
+		int id = Trie.ROOT_ID;
+		for (int i = offset; i < offset + length; i++) {
+			int edge = trie.edge(state, Utilities.indexOf(buffer[i]));
+			if (edge == Trie.NONE) {
+				metrics.visit(i - offset + ONE);
+				return Trie.NONE;
+			}
+			id = trie.step(id, state, edge);
+			state = trie.target(edge);
+		}
+		metrics.visit(length);
+		return trie.isWord(state) ? id : Trie.NONE;
+	}
+
+	/**
+	 * checkRange is a helper method that makes sure a word lies within the
+	 * array holding it.
+	 * 
+	 * @param buffer
+	 *            the array holding the word.
+	 * @param offset
+	 *            the position of the first letter of the word.
+	 * @param length
+	 *            the number of letters in the word.
+	 * @throws IndexOutOfBoundsException
+	 *             if the word does not lie within the array.
+	 */
+	static void checkRange(char[] buffer, int offset, int length) {
+		if (offset < 0 || length < 0 || offset > buffer.length - length)
+			throw new IndexOutOfBoundsException("Offset " + offset
+					+ " and length " + length + " are outside an array of "
+					+ buffer.length + ".");
+	}
+
+	/**
+	 * Given some string, this method returns a list of {@link Suggestion}s for
+	 * correctly spelled words that are similar to the string. The list of
+	 * suggestions is sorted according to three criteria:
+	 * <ul>
+	 * <li>Suggestions with lower edit distance appear first.
+	 * <li>
+	 * <li>Between suggestions with the same edit distance, suggestions with
+	 * higher frequency counts appear first.
+	 * <li>
+	 * <li>Between suggestions with the same frequency counts, suggestions first
+	 * in alphabetical order appear first.</li>
+	 * </ul>
+	 * 
+	 * The list of suggestions will include all words which are
+	 * {@link #MAX_EDIT_DISTANCE} edit distance away from the given string.
+	 * 
+	 * If the given string is a correctly spelled word, the first suggestion
+	 * will be the word itself.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @return a list of suggestions sorted by how likely they are to be the
+	 *         intended correct spelling
+	 */
+	public Suggestion[] getSuggestions(String string) {
+		return getSuggestions(string, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the first k suggestions {@link #getSuggestions(String)} would
+	 * return for a string, without finding and sorting all of them. Once k
+	 * suggestions have been found, words further away than the worst of them
+	 * are no longer searched for, so asking for a few suggestions is much
+	 * cheaper than asking for all of them.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @param k
+	 *            the largest number of suggestions to return
+	 * @return at most k suggestions sorted by how likely they are to be the
+	 *         intended correct spelling
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1
+	 */
+	public Suggestion[] getSuggestions(String string, int k) {
+		return getSuggestions(string, k, MAX_EDIT_DISTANCE);
+	}
+
+	/**
+	 * Returns the first k suggestions for a string, like
+	 * {@link #getSuggestions(String, int)}, but only considering words up to
+	 * the given edit distance away instead of {@link #MAX_EDIT_DISTANCE}. The
+	 * cost of a search grows quickly with the distance, so a smaller distance
+	 * gives faster answers and a larger one finds corrections for badly
+	 * misspelled long words. No word is further away from the string than
+	 * the longer of the two, so any distance beyond the length of the string
+	 * and of the longest word finds the same suggestions as that length.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @param k
+	 *            the largest number of suggestions to return
+	 * @param maxDistance
+	 *            the largest edit distance a suggestion may have
+	 * @return at most k suggestions sorted by how likely they are to be the
+	 *         intended correct spelling
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1 or maxDistance is negative
+	 */
+	public Suggestion[] getSuggestions(String string, int k, int maxDistance) {
+		SuggestionBuffer buffer = new SuggestionBuffer();
+		getSuggestions(string, k, maxDistance, buffer);
+		return buffer.toArray();
+	}
+
+	/**
+	 * Finds the first k suggestions {@link #getSuggestions(String, int)}
+	 * would return for a string and puts them in a buffer, replacing whatever
+	 * it held, without creating a {@link Suggestion} or a string for any of
+	 * them. Passing the same buffer for every query makes finding
+	 * suggestions create almost no garbage.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be found
+	 * @param k
+	 *            the largest number of suggestions to find
+	 * @param buffer
+	 *            the buffer the suggestions are put in, best first
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1
+	 */
+	public void getSuggestions(String string, int k, SuggestionBuffer buffer) {
+		getSuggestions(string, k, MAX_EDIT_DISTANCE, buffer);
+	}
+
+	/**
+	 * Finds the first k suggestions
+	 * {@link #getSuggestions(String, int, int)} would return for a string and
+	 * puts them in a buffer, replacing whatever it held, without creating a
+	 * {@link Suggestion} or a string for any of them.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be found
+	 * @param k
+	 *            the largest number of suggestions to find
+	 * @param maxDistance
+	 *            the largest edit distance a suggestion may have
+	 * @param buffer
+	 *            the buffer the suggestions are put in, best first
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1 or maxDistance is negative
+	 */
+	public void getSuggestions(String string, int k, int maxDistance,
+			SuggestionBuffer buffer) {
+		if (k < ONE)
+			throw new IllegalArgumentException(
+					"At least one suggestion must be asked for.");
+		if (maxDistance < 0)
+			throw new IllegalArgumentException(
+					"The edit distance cannot be negative.");
+
+		suggest(string.toUpperCase(), letters(string), 0, maxDistance, k,
+				buffer, null);
+	}
+
+	/**
+	 * Returns the same suggestions as {@link #getSuggestions(String, int, int)},
+	 * but searches the prefix tree with fork/join tasks run by the given
+	 * pool, one for each subtree near the root that is worth searching, so a
+	 * long string can be corrected by all the idle processors at once. Short
+	 * strings, whose searches are over too quickly to gain anything, are
+	 * searched on the calling thread. A dictionary with a symmetric delete
+	 * index is always searched on the calling thread, since looking up the
+	 * index is already fast.
+	 * 
+	 * The dictionary must not be changed until this method returns.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @param k
+	 *            the largest number of suggestions to return
+	 * @param maxDistance
+	 *            the largest edit distance a suggestion may have
+	 * @param pool
+	 *            the pool which runs the search
+	 * @return at most k suggestions sorted by how likely they are to be the
+	 *         intended correct spelling
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1 or maxDistance is negative
+	 */
+	public Suggestion[] getSuggestionsInParallel(String string, int k,
+			int maxDistance, ForkJoinPool pool) {
+		if (k < ONE)
+			throw new IllegalArgumentException(
+					"At least one suggestion must be asked for.");
+		if (maxDistance < 0)
+			throw new IllegalArgumentException(
+					"The edit distance cannot be negative.");
+
+		SuggestionBuffer buffer = new SuggestionBuffer();
+		suggest(string.toUpperCase(), letters(string), 0, maxDistance, k,
+				buffer, pool);
+		return buffer.toArray();
+	}
+
+	/**
+	 * Returns the suggestions {@link #getSuggestions(String)} would return for
+	 * a string one at a time, in the same order, finding them only as they
+	 * are needed. The words one edit away are only searched for once the
+	 * word itself has been returned or found not to exist, and the words two
+	 * edits away once all the words one edit away have been returned, so
+	 * taking only the first suggestion costs a fraction of finding them all.
+	 * 
+	 * The dictionary should not be changed while the iterator is in use; a
+	 * {@link DictionarySnapshot} can be iterated over safely instead.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @return an iterator over the suggestions, best first
+	 * @throws IllegalArgumentException
+	 *             if the string contains a character which is not a letter
+	 */
+	public Iterator<Suggestion> getSuggestionsLazily(String string) {
+		return new LazySuggestions(string.toUpperCase(), letters(string));
+	}
+
+	/**
+	 * Returns the first k suggestions for a string, searching only as far
+	 * away as the string needs. Words one edit away are looked for first, and
+	 * the search is only widened, one edit at a time, while fewer than k
+	 * suggestions have been found. How far it may be widened depends on the
+	 * length of the string: strings of up to four letters only get words one
+	 * edit away, strings of nine letters or more get words up to three edits
+	 * away, and all others get words up to {@link #MAX_EDIT_DISTANCE} away.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @param k
+	 *            the largest number of suggestions to return
+	 * @return at most k suggestions sorted by how likely they are to be the
+	 *         intended correct spelling
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1
+	 */
+	public Suggestion[] getAdaptiveSuggestions(String string, int k) {
+		int limit;
+		if (string.length() <= SHORT_WORD)
+			limit = ONE;
+		else if (string.length() < LONG_WORD)
+			limit = MAX_EDIT_DISTANCE;
+		else
+			limit = MAX_EDIT_DISTANCE + ONE;
+
+		Suggestion[] suggestions = getSuggestions(string, k, ONE);
+		for (int distance = ONE + ONE; distance <= limit
+				&& suggestions.length < k; distance++)
+			suggestions = getSuggestions(string, k, distance);
+		return suggestions;
+	}
+
+	/**
+	 * letters is a private helper method that translates a string into letter
+	 * indexes.
+	 * 
+	 * @param string
+	 *            the string to translate.
+	 * @return the letter index of each character of the string.
+	 */
+	private static int[] letters(String string) {
+		int[] letters = new int[string.length()];
+		for (int i = 0; i < letters.length; i++)
+			letters[i] = Utilities.indexOf(string.charAt(i));
+		return letters;
+	}
+
+	/**
+	 * suggest is a private helper method that finds the words within an edit
+	 * distance of a string, puts those at least a smaller distance away in a
+	 * buffer and ranks them. The work it took is recorded in the buffer, the
+	 * metrics and, if a flight recording is running, a
+	 * {@link SuggestionEvent}.
+	 * 
+	 * @param string
+	 *            the upper case string to find words for.
+	 * @param letters
+	 *            the letter indexes of the string.
+	 * @param minDistance
+	 *            the smallest edit distance of a word to keep.
+	 * @param maxDistance
+	 *            the largest edit distance of a word.
+	 * @param k
+	 *            the largest number of words to keep.
+	 * @param buffer
+	 *            the buffer the words are put in.
+	 * @param pool
+	 *            the pool which runs a parallel search of the prefix tree,
+	 *            or null to search on this thread.
+	 */
+	private void suggest(String string, int[] letters, int minDistance,
+			int maxDistance, int k, SuggestionBuffer buffer, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		SuggestionEvent event = new SuggestionEvent();
+		event.begin();
+		long nodes = 0;
+		// Every buffer has its own collector, so queries into different
+		// buffers may run at the same time.
+		CandidateCollector candidates = buffer.candidates;
+		Trie trie = trie();
+		// A larger distance would find no more words, and the tables of the
+		// search grow with it.
+		maxDistance = Math.min(maxDistance, Math.max(letters.length,
+				trie.longestWord()));
+		candidates.reset(maxDistance, k);
+		SymmetricDeleteIndex deletes = deletes();
+		// The index only holds deletions up to MAX_EDIT_DISTANCE, so words
+		// further away than that have to be found in the prefix tree.
+		if (deletes != null && maxDistance <= MAX_EDIT_DISTANCE) {
+			deletes.candidates(string, maxDistance, candidates);
+			// The collector is keyed by the numbers of the index.
+			buffer.reset(trie, deletes);
+			for (int i = 0; i < candidates.size(); i++) {
+				int distance = candidates.distance(i);
+				if (distance >= minDistance && distance <= candidates.limit()) {
+					int number = candidates.id(i);
+					String word = deletes.word(number);
+					nodes += word.length();
+					buffer.add(number, distance, trie.getFrequency(find(trie,
+							word)));
+				}
+			}
+		} else {
+			int splitDepth = 0;
+			if (pool != null
+					&& letters.length * (maxDistance + ONE) >= PARALLEL_WORK)
+				splitDepth = SPLIT_DEPTH;
+			PrefixTreeSearch search = new PrefixTreeSearch(trie, letters,
+					maxDistance, k, candidates, splitDepth);
+			if (splitDepth > 0)
+				pool.invoke(search);
+			else
+				search.compute();
+			nodes = search.nodesVisited;
+			metrics.visit(nodes);
+			// The collector is keyed by the ids of the prefix tree.
+			buffer.reset(trie, null);
+			for (int i = 0; i < candidates.size(); i++) {
+				int distance = candidates.distance(i);
+				if (distance >= minDistance && distance <= candidates.limit()) {
+					int id = candidates.id(i);
+					buffer.add(id, distance, trie.getFrequency(id));
+				}
+			}
+		}
+		long sorted = System.nanoTime();
+		buffer.rank(k);
+		long end = System.nanoTime();
+		buffer.measure(nodes, candidates.generated(), candidates.duplicates(),
+				end - sorted, end - start);
+		metrics.query(string, buffer);
+
+		if (event.shouldCommit()) {
+			event.query = string;
+			event.maxDistance = maxDistance;
+			event.wanted = k;
+			event.found = buffer.size();
+			event.symmetricDelete = deletes != null
+					&& maxDistance <= MAX_EDIT_DISTANCE;
+			event.nodesVisited = nodes;
+			event.candidatesGenerated = buffer.candidatesGenerated();
+			event.candidatesDeduplicated = buffer.candidatesDeduplicated();
+			event.sortTime = buffer.sortTime();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Returns the fastest sorter for an array of suggestions of the given
+	 * length. Each sorts in the order described by {@link SpellingComparator}
+	 * and keeps nothing between sorts, so the sorter returned can be shared
+	 * between threads.
+	 * 
+	 * @param size
+	 *            the number of suggestions to sort
+	 * @return a {@link MergeSorter} for short arrays, a
+	 *         {@link SuggestionSorter} for long ones, and a
+	 *         {@link ParallelSorter} of suggestion sorters on the common pool
+	 *         for very long ones
+	 */
+	public static Sorter<Suggestion> sorter(int size) {
+		if (size < RADIX_SORT_SIZE)
+			return MERGE_SORTER;
+		if (size < PARALLEL_SORT_SIZE)
+			return SUGGESTION_SORTER;
+		return PARALLEL_SORTER;
+	}
+
+	/**
+	 * Returns the k most frequent words in this dictionary which start with
+	 * the given prefix, most frequent first, and in alphabetical order
+	 * between words with the same frequency. For k up to
+	 * {@link CompletionIndex#LIST_SIZE} the answer is kept for every prefix
+	 * with more words below it than that, so completing a prefix as it is
+	 * typed costs about as much as looking up a word. The index is built the
+	 * first time this method is called.
+	 * 
+	 * @param prefix
+	 *            the start of the words
+	 * @param k
+	 *            the largest number of words to return
+	 * @return at most k words which start with the prefix
+	 * @throws IllegalArgumentException
+	 *             if k is less than 1 or the prefix contains a character
+	 *             which is not a letter
+	 */
+	public String[] complete(String prefix, int k) {
+		if (k < ONE)
+			throw new IllegalArgumentException(
+					"At least one word must be asked for.");
+
+		String upper = prefix.toUpperCase();
+		Trie trie = trie();
+		int state = trie.root();
+		int id = Trie.ROOT_ID;
+		for (int i = 0; i < upper.length(); i++) {
+			int edge = trie.edge(state, Utilities.indexOf(upper.charAt(i)));
+			if (edge == Trie.NONE) {
+				metrics.visit(i + ONE);
+				return new String[0];
+			}
+			id = trie.step(id, state, edge);
+			state = trie.target(edge);
+		}
+
+		Suggestion[] list = null;
+		if (k <= CompletionIndex.LIST_SIZE)
+			list = completions().get(id, upper.length());
+
+		if (list == null) {
+			// Few enough words are below the prefix to find them all, or more
+			// were asked for than the index keeps.
+			SuggestionQueue words = new SuggestionQueue(k);
+			metrics.visit(upper.length()
+					+ complete(trie, state, id, new StringBuilder(upper), words));
+			list = words.toArray();
+		}
+
+		String[] words = new String[Math.min(k, list.length)];
+		for (int i = 0; i < words.length; i++)
+			words[i] = list[i].string;
+		return words;
+	}
+
+	/**
+	 * complete is a private helper method that offers every word below a
+	 * state to a queue of words.
+	 * 
+	 * @param trie
+	 *            the prefix tree.
+	 * @param state
+	 *            the current state.
+	 * @param id
+	 *            the id of the path to the current state.
+	 * @param path
+	 *            the letters of the path to the current state.
+	 * @param words
+	 *            the queue of words.
+	 * @return the number of nodes visited below the current state.
+	 */
+	private long complete(Trie trie, int state, int id, StringBuilder path,
+			SuggestionQueue words) {
+		if (trie.isWord(state))
+			words.add(new Suggestion(path.toString(), 0, trie.getFrequency(id)));
+
+		long nodes = 0;
+		int length = path.length();
+		for (int edge = trie.firstEdge(state); edge != Trie.NONE; edge = trie
+				.nextEdge(edge)) {
+			nodes++;
+			path.append(Utilities.LETTERS[trie.letter(edge)]);
+			nodes += complete(trie, trie.target(edge),
+					trie.step(id, state, edge), path, words);
+			path.setLength(length);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Finds the suggestions for every string in a collection, with the
+	 * lookups divided into tasks which are run by the pool this dictionary
+	 * shares between all its batches: the common pool, or the one made for a
+	 * spell checker by {@link Checker.Builder#parallelism(int)}. Each distinct
+	 * string is only looked up once, however many times it appears. The
+	 * dictionary must not be changed until this method returns.
+	 * 
+	 * @param strings
+	 *            the strings for which suggestions will be returned, such as
+	 *            every token of a document
+	 * @return the suggestions for each distinct string, as returned by
+	 *         {@link #getSuggestions(String)}, in the order the strings first
+	 *         appear
+	 * @throws IllegalArgumentException
+	 *             if any string contains a character which is not a letter
+	 */
+	public Map<String, Suggestion[]> checkAll(Collection<String> strings) {
+		return checkAll(strings, pool());
+	}
+
+	/**
+	 * Finds the suggestions for every string in a collection, with the
+	 * lookups divided into tasks which are run by the given executor. Each
+	 * distinct string is only looked up once, however many times it appears.
+	 * The dictionary must not be changed until this method returns.
+	 * 
+	 * @param strings
+	 *            the strings for which suggestions will be returned, such as
+	 *            every token of a document
+	 * @param executor
+	 *            the executor which runs the lookups
+	 * @return the suggestions for each distinct string, as returned by
+	 *         {@link #getSuggestions(String)}, in the order the strings first
+	 *         appear
+	 * @throws IllegalArgumentException
+	 *             if any string contains a character which is not a letter
+	 */
+	public Map<String, Suggestion[]> checkAll(Collection<String> strings,
+			ExecutorService executor) {
+		// Remove repeated strings.
+		final String[] distinct = new LinkedHashSet<String>(strings)
+				.toArray(new String[0]);
+		final Suggestion[][] results = new Suggestion[distinct.length][];
+
+		// Give each task its own slice of the results.
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int start = 0; start < distinct.length; start += BATCH_SIZE) {
+			final int first = start;
+			final int last = Math.min(start + BATCH_SIZE, distinct.length);
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					for (int i = first; i < last; i++)
+						results[i] = getSuggestions(distinct[i]);
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+
+		LinkedHashMap<String, Suggestion[]> map = new LinkedHashMap<String, Suggestion[]>();
+		for (int i = 0; i < distinct.length; i++)
+			map.put(distinct[i], results[i]);
+		return map;
+	}
+
+	/**
+	 * Finds the suggestions for every string in a collection, as
+	 * {@link #checkAll(Collection)} does, and ranks all of them together in
+	 * one report, in the order described by {@link SpellingComparator}: the
+	 * closest corrections first, then the most frequent, then alphabetical.
+	 * A suggestion made for more than one string appears once for each. A
+	 * report on a whole set of documents can hold hundreds of thousands of
+	 * suggestions, so it is sorted by the sorter
+	 * {@link #sorter(int)} chooses for its length, and a very long one is
+	 * sorted by the threads of the pool which ran the lookups.
+	 * 
+	 * @param strings
+	 *            the strings for which suggestions will be returned, such as
+	 *            every token of a set of documents
+	 * @return the suggestions for all the distinct strings, best first
+	 * @throws IllegalArgumentException
+	 *             if any string contains a character which is not a letter
+	 */
+	public Suggestion[] rankAll(Collection<String> strings) {
+		Map<String, Suggestion[]> results = checkAll(strings);
+		int size = 0;
+		for (Suggestion[] suggestions : results.values())
+			size += suggestions.length;
+
+		Suggestion[] report = new Suggestion[size];
+		size = 0;
+		for (Suggestion[] suggestions : results.values()) {
+			System.arraycopy(suggestions, 0, report, size, suggestions.length);
+			size += suggestions.length;
+		}
+
+		Sorter<Suggestion> sorter = sorter(report.length);
+		ForkJoinPool pool = pool();
+		if (sorter == PARALLEL_SORTER && pool != ForkJoinPool.commonPool())
+			sorter = new ParallelSorter<Suggestion>(SUGGESTION_SORTER, pool);
+		sorter.sort(report);
+		return report;
+	}
+
+	/**
+	 * Writes this dictionary, including the frequency of every word, to a
+	 * binary file which can be read back with {@link Checker#load(Path)}. The
+	 * dictionary is written in its minimized form, as if it had been built
+	 * with {@link Checker.Builder#minimized(boolean)}.
+	 * 
+	 * @param path
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		Trie trie = trie();
+		Dawg dawg;
+		if (trie instanceof Dawg)
+			dawg = (Dawg) trie;
+		else
+			dawg = new Dawg(trie);
+		dawg.write(path);
+	}
+
+	/**
+	 * An iterator over the suggestions for a string which searches one edit
+	 * distance at a time. Each tier is the set of words exactly that far
+	 * away, found by a search limited to that distance and sorted on its own,
+	 * so the next tier is only searched for once the last one runs out.
+	 */
+	private class LazySuggestions implements Iterator<Suggestion> {
+
+		/** The upper case string suggestions are found for. */
+		private final String string;
+
+		/** The letter indexes of the string. */
+		private final int[] letters;
+
+		/** The edit distance of the next tier to search for. */
+		private int distance;
+
+		/** The suggestions of the current tier. */
+		private final SuggestionBuffer tier = new SuggestionBuffer();
+
+		/** The position of the next suggestion in the current tier. */
+		private int next;
+
+		/**
+		 * Creates an iterator which has not searched for anything yet.
+		 * 
+		 * @param string
+		 *            the upper case string suggestions are found for
+		 * @param letters
+		 *            the letter indexes of the string
+		 */
+		public LazySuggestions(String string, int[] letters) {
+			this.string = string;
+			this.letters = letters;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == tier.size() && distance <= MAX_EDIT_DISTANCE) {
+				suggest(string, letters, distance, distance,
+						Integer.MAX_VALUE, tier, null);
+				next = 0;
+				distance++;
+			}
+			return next < tier.size();
+		}
+
+		@Override
+		public Suggestion next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Suggestion suggestion = new Suggestion(tier.word(next),
+					tier.distance(next), tier.frequency(next));
+			next++;
+			return suggestion;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
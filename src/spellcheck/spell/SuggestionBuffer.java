@@ -0,0 +1,534 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+
+/**
+ * A suggestion buffer holds the results of a search for suggestions in
+ * parallel arrays of word ids, edit distances and frequencies, so that a
+ * search creates no objects for the words it finds. The words themselves are
+ * only spelled out when {@link #word(int)} or {@link #toArray()} is called.
+ * 
+ * A buffer keeps the room it has made between searches, so a caller which
+ * finds suggestions for many strings one after another should pass the same
+ * buffer to
+ * {@link SpellingDictionary#getSuggestions(String, int, SuggestionBuffer)}
+ * each time. A buffer must not be used by more than one thread at once.
+ * 
+ * After a search, the buffer also holds the work the search took, such as
+ * {@link #nodesVisited()} and {@link #latency()}, so the cost of one string
+ * can be told apart from the totals in {@link CheckerMetrics}.
+ * 
+ * @author James Woods
+ */
+public class SuggestionBuffer {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/**
+	 * DOUBLE is used to find the children of an element of the heap.
+	 */
+	private static final int DOUBLE = 2;
+
+	/** The number of suggestions room is made for at first. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The number of bits of the frequency sorted by each radix pass. */
+	private static final int DIGIT_BITS = SuggestionSorter.DIGIT_BITS;
+
+	/** The mask which takes the lowest digit of a key. */
+	private static final int MASK = SuggestionSorter.MASK;
+
+	/** The word id of each suggestion. */
+	private int[] ids = new int[INITIAL_CAPACITY];
+
+	/** The edit distance of each suggestion. */
+	private int[] distances = new int[INITIAL_CAPACITY];
+
+	/** The frequency of each suggestion. */
+	private int[] frequencies = new int[INITIAL_CAPACITY];
+
+	/** The word ids of the suggestions while they are being moved. */
+	private int[] spareIds = new int[INITIAL_CAPACITY];
+
+	/** The edit distances of the suggestions while they are being moved. */
+	private int[] spareDistances = new int[INITIAL_CAPACITY];
+
+	/** The frequencies of the suggestions while they are being moved. */
+	private int[] spareFrequencies = new int[INITIAL_CAPACITY];
+
+	/** The sort key of the frequency of each suggestion. */
+	private int[] keys = new int[INITIAL_CAPACITY];
+
+	/** The sort keys of the suggestions while they are being moved. */
+	private int[] spareKeys = new int[INITIAL_CAPACITY];
+
+	/** The number of suggestions with each digit of a sort key. */
+	private final int[] counts = new int[SuggestionSorter.RADIX];
+
+	/** The number of suggestions. */
+	private int size;
+
+	/** The prefix tree the word ids belong to. */
+	private Trie trie;
+
+	/**
+	 * deletes is the symmetric delete index the word ids belong to, or null
+	 * if they are ids of the prefix tree.
+	 */
+	private SymmetricDeleteIndex deletes;
+
+	/** The letters of the first of two words being compared. */
+	private byte[] first = new byte[INITIAL_CAPACITY];
+
+	/** The letters of the second of two words being compared. */
+	private byte[] second = new byte[INITIAL_CAPACITY];
+
+	/** The number of nodes visited by the last search. */
+	private long nodesVisited;
+
+	/** The number of candidate words generated by the last search. */
+	private long candidatesGenerated;
+
+	/** The number of duplicate candidates thrown away by the last search. */
+	private long candidatesDeduplicated;
+
+	/** The time the last search spent ranking, in nanoseconds. */
+	private long sortTime;
+
+	/** The time the last search took, in nanoseconds. */
+	private long latency;
+
+	/** The collector reused by every search into this buffer. */
+	final CandidateCollector candidates = new CandidateCollector(
+			SpellingDictionary.MAX_EDIT_DISTANCE, ONE);
+
+	/**
+	 * Returns the number of suggestions in the buffer.
+	 * 
+	 * @return the number of suggestions
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a suggested word.
+	 * 
+	 * @param index
+	 *            the rank of the suggestion, starting from 0 for the best
+	 * @return the word, in upper case
+	 */
+	public String word(int index) {
+		checkIndex(index);
+		if (deletes != null)
+			return deletes.word(ids[index]);
+		return trie.toString(ids[index]);
+	}
+
+	/**
+	 * Returns the edit distance of a suggestion.
+	 * 
+	 * @param index
+	 *            the rank of the suggestion, starting from 0 for the best
+	 * @return the edit distance
+	 */
+	public int distance(int index) {
+		checkIndex(index);
+		return distances[index];
+	}
+
+	/**
+	 * Returns the frequency of a suggestion.
+	 * 
+	 * @param index
+	 *            the rank of the suggestion, starting from 0 for the best
+	 * @return the frequency
+	 */
+	public int frequency(int index) {
+		checkIndex(index);
+		return frequencies[index];
+	}
+
+	/**
+	 * Returns the suggestions in the buffer as objects, best first.
+	 * 
+	 * @return the suggestions
+	 */
+	public Suggestion[] toArray() {
+		Suggestion[] suggestions = new Suggestion[size];
+		for (int i = 0; i < size; i++)
+			suggestions[i] = new Suggestion(word(i), distances[i],
+					frequencies[i]);
+		return suggestions;
+	}
+
+	/**
+	 * Returns the number of nodes of the prefix tree the search which filled
+	 * this buffer visited, including those visited to look up the frequencies
+	 * of words found in a symmetric delete index.
+	 * 
+	 * @return the number of nodes visited
+	 */
+	public long nodesVisited() {
+		return nodesVisited;
+	}
+
+	/**
+	 * Returns the number of candidate words the search which filled this
+	 * buffer generated, including those generated more than once.
+	 * 
+	 * @return the number of candidates
+	 */
+	public long candidatesGenerated() {
+		return candidatesGenerated;
+	}
+
+	/**
+	 * Returns the number of candidate words the search which filled this
+	 * buffer threw away because it had already generated them.
+	 * 
+	 * @return the number of duplicate candidates
+	 */
+	public long candidatesDeduplicated() {
+		return candidatesDeduplicated;
+	}
+
+	/**
+	 * Returns the time the search which filled this buffer spent ranking its
+	 * suggestions.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	public long sortTime() {
+		return sortTime;
+	}
+
+	/**
+	 * Returns the time the search which filled this buffer took, from the
+	 * moment it was asked for until its suggestions were ranked.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	public long latency() {
+		return latency;
+	}
+
+	/**
+	 * Removes every suggestion from the buffer.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Empties the buffer to be filled with words from a dictionary.
+	 * 
+	 * @param trie
+	 *            the prefix tree the word ids belong to
+	 * @param deletes
+	 *            the symmetric delete index the word ids belong to, or null
+	 *            if they are ids of the prefix tree
+	 */
+	void reset(Trie trie, SymmetricDeleteIndex deletes) {
+		this.trie = trie;
+		this.deletes = deletes;
+		size = 0;
+	}
+
+	/**
+	 * Records the work done by the search which filled the buffer.
+	 * 
+	 * @param nodesVisited
+	 *            the number of nodes visited
+	 * @param candidatesGenerated
+	 *            the number of candidate words generated
+	 * @param candidatesDeduplicated
+	 *            the number of duplicate candidates thrown away
+	 * @param sortTime
+	 *            the time spent ranking, in nanoseconds
+	 * @param latency
+	 *            the time the search took, in nanoseconds
+	 */
+	void measure(long nodesVisited, long candidatesGenerated,
+			long candidatesDeduplicated, long sortTime, long latency) {
+		this.nodesVisited = nodesVisited;
+		this.candidatesGenerated = candidatesGenerated;
+		this.candidatesDeduplicated = candidatesDeduplicated;
+		this.sortTime = sortTime;
+		this.latency = latency;
+	}
+
+	/**
+	 * Adds a suggestion to the end of the buffer.
+	 * 
+	 * @param id
+	 *            the word id
+	 * @param distance
+	 *            the edit distance
+	 * @param frequency
+	 *            the frequency
+	 */
+	void add(int id, int distance, int frequency) {
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * DOUBLE);
+			distances = Arrays.copyOf(distances, size * DOUBLE);
+			frequencies = Arrays.copyOf(frequencies, size * DOUBLE);
+		}
+		ids[size] = id;
+		distances[size] = distance;
+		frequencies[size] = frequency;
+		size++;
+	}
+
+	/**
+	 * Sorts the suggestions in place, in the order described by
+	 * {@link SpellingComparator}, and keeps only the first k of them.
+	 * 
+	 * A few suggestions are put in a heap with the best on top and only the
+	 * first k are taken off it, so the rest are never sorted. Once there are
+	 * {@link SpellingDictionary#RADIX_SORT_SIZE} or more, they are ranked the
+	 * way a {@link SuggestionSorter} does it: those further away than the
+	 * k-th best are dropped, the rest are put in order of frequency by a radix
+	 * sort and then into one bucket for each edit distance by a counting
+	 * sort, and only runs with the same distance and frequency which reach
+	 * into the first k are put in alphabetical order with a heap.
+	 * 
+	 * @param k
+	 *            the largest number of suggestions to keep
+	 */
+	void rank(int k) {
+		int count = Math.min(k, size);
+		if (size < SpellingDictionary.RADIX_SORT_SIZE) {
+			select(0, size, count);
+		} else {
+			sortByDistanceAndFrequency(count);
+			int start = 0;
+			for (int i = ONE; start < count; i++) {
+				if (i == size || distances[i] != distances[start]
+						|| frequencies[i] != frequencies[start]) {
+					if (i - start > ONE)
+						select(start, i, Math.min(i, count) - start);
+					start = i;
+				}
+			}
+		}
+		size = count;
+	}
+
+	/**
+	 * sortByDistanceAndFrequency is a private helper method that drops the
+	 * suggestions further away than the k-th best one and puts the rest in
+	 * order of edit distance and then highest frequency first, keeping
+	 * suggestions with the same of both in the order they were in.
+	 * 
+	 * @param count
+	 *            the number of suggestions which will be kept, at least 1.
+	 */
+	private void sortByDistanceAndFrequency(int count) {
+		int maxDistance = 0;
+		for (int i = 0; i < size; i++)
+			maxDistance = Math.max(maxDistance, distances[i]);
+		int[] buckets = new int[maxDistance + ONE];
+		for (int i = 0; i < size; i++)
+			buckets[distances[i]]++;
+		// Every suggestion further away than the count-th best one would be
+		// thrown away after sorting, so it is not sorted at all.
+		int limit = 0;
+		for (int total = buckets[0]; total < count; total += buckets[limit])
+			limit++;
+
+		if (spareIds.length < size || keys.length < size) {
+			spareIds = new int[ids.length];
+			spareDistances = new int[ids.length];
+			spareFrequencies = new int[ids.length];
+			keys = new int[ids.length];
+			spareKeys = new int[ids.length];
+		}
+		int length = 0;
+		for (int i = 0; i < size; i++) {
+			if (distances[i] <= limit) {
+				ids[length] = ids[i];
+				distances[length] = distances[i];
+				frequencies[length] = frequencies[i];
+				keys[length] = SuggestionSorter.key(frequencies[i]);
+				length++;
+			}
+		}
+		size = length;
+
+		for (int shift = 0; shift < Integer.SIZE; shift += DIGIT_BITS) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < size; i++)
+				counts[(keys[i] >>> shift) & MASK]++;
+			// Frequencies are mostly small, so the high digits are usually
+			// the same for every suggestion and the pass can be skipped.
+			if (counts[(keys[0] >>> shift) & MASK] == size)
+				continue;
+			SuggestionSorter.positions(counts);
+			for (int i = 0; i < size; i++) {
+				int position = counts[(keys[i] >>> shift) & MASK]++;
+				spareIds[position] = ids[i];
+				spareDistances[position] = distances[i];
+				spareFrequencies[position] = frequencies[i];
+				spareKeys[position] = keys[i];
+			}
+			swapArrays();
+			int[] temp = keys;
+			keys = spareKeys;
+			spareKeys = temp;
+		}
+
+		SuggestionSorter.positions(buckets);
+		for (int i = 0; i < size; i++) {
+			int position = buckets[distances[i]]++;
+			spareIds[position] = ids[i];
+			spareDistances[position] = distances[i];
+			spareFrequencies[position] = frequencies[i];
+		}
+		swapArrays();
+	}
+
+	/**
+	 * swapArrays is a private helper method that makes the spare arrays, into
+	 * which the suggestions have just been moved, the arrays of the buffer.
+	 */
+	private void swapArrays() {
+		int[] temp = ids;
+		ids = spareIds;
+		spareIds = temp;
+		temp = distances;
+		distances = spareDistances;
+		spareDistances = temp;
+		temp = frequencies;
+		frequencies = spareFrequencies;
+		spareFrequencies = temp;
+	}
+
+	/**
+	 * select is a private helper method that puts the best suggestions of
+	 * part of the buffer at its start, in order. The suggestions are put in a
+	 * heap with the best on top and only as many as are wanted are taken off
+	 * it, so the rest are never sorted.
+	 * 
+	 * @param start
+	 *            the position of the first suggestion.
+	 * @param end
+	 *            the position just after the last suggestion.
+	 * @param count
+	 *            the number of suggestions to put in order.
+	 */
+	private void select(int start, int end, int count) {
+		int length = end - start;
+		for (int i = length / DOUBLE - ONE; i >= 0; i--)
+			siftDown(start, i, length);
+		// Each suggestion taken off the heap goes just past its end, so the
+		// best end up at the back of the part, best last.
+		for (int last = length - ONE; last >= length - count; last--) {
+			swap(start, start + last);
+			siftDown(start, 0, last);
+		}
+		for (int i = start, j = end - ONE; i < j; i++, j--)
+			swap(i, j);
+	}
+
+	/**
+	 * compare is a private helper method that compares two suggestions in the
+	 * buffer by distance, then frequency, then alphabetical order.
+	 * 
+	 * @param a
+	 *            the position of the first suggestion.
+	 * @param b
+	 *            the position of the second suggestion.
+	 * @return a negative number if the first suggestion is better, a positive
+	 *         number if the second is better, or zero if they are the same.
+	 */
+	private int compare(int a, int b) {
+		if (distances[a] != distances[b])
+			return distances[a] < distances[b] ? -ONE : ONE;
+		if (frequencies[a] != frequencies[b])
+			return frequencies[a] > frequencies[b] ? -ONE : ONE;
+		if (deletes != null)
+			return deletes.word(ids[a]).compareTo(deletes.word(ids[b]));
+
+		// Compare the letters of the two words without spelling them out as
+		// strings. Letter indexes are in alphabetical order.
+		int firstLength = trie.spell(ids[a], first);
+		if (firstLength > first.length) {
+			first = new byte[firstLength];
+			trie.spell(ids[a], first);
+		}
+		int secondLength = trie.spell(ids[b], second);
+		if (secondLength > second.length) {
+			second = new byte[secondLength];
+			trie.spell(ids[b], second);
+		}
+		int length = Math.min(firstLength, secondLength);
+		for (int i = 0; i < length; i++) {
+			if (first[i] != second[i])
+				return first[i] < second[i] ? -ONE : ONE;
+		}
+		return firstLength - secondLength;
+	}
+
+	/**
+	 * siftDown is a private helper method that moves a suggestion down the
+	 * heap until both of its children come after it.
+	 * 
+	 * @param start
+	 *            the position in the buffer where the heap starts.
+	 * @param index
+	 *            the position of the suggestion in the heap.
+	 * @param end
+	 *            the number of suggestions in the heap.
+	 */
+	private void siftDown(int start, int index, int end) {
+		int child;
+		while ((child = index * DOUBLE + ONE) < end) {
+			if (child + ONE < end
+					&& compare(start + child + ONE, start + child) < 0)
+				child++;
+			if (compare(start + child, start + index) >= 0)
+				break;
+			swap(start + index, start + child);
+			index = child;
+		}
+	}
+
+	/**
+	 * swap is a private helper method that swaps two suggestions.
+	 * 
+	 * @param a
+	 *            the position of the first suggestion.
+	 * @param b
+	 *            the position of the second suggestion.
+	 */
+	private void swap(int a, int b) {
+		int temp = ids[a];
+		ids[a] = ids[b];
+		ids[b] = temp;
+		temp = distances[a];
+		distances[a] = distances[b];
+		distances[b] = temp;
+		temp = frequencies[a];
+		frequencies[a] = frequencies[b];
+		frequencies[b] = temp;
+	}
+
+	/**
+	 * checkIndex is a private helper method that makes sure a suggestion is
+	 * in the buffer.
+	 * 
+	 * @param index
+	 *            the position of the suggestion.
+	 * @throws IndexOutOfBoundsException
+	 *             if there is no suggestion at the position.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " is outside a buffer of " + size + " suggestions.");
+	}
+}
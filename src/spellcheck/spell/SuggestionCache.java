@@ -0,0 +1,141 @@
+package spellcheck.spell;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A suggestion cache remembers the suggestions a dictionary returned for the
+ * most recently used strings, so that a string which is misspelled again and
+ * again is only searched for once. When the cache is full, the string which
+ * was used least recently is forgotten.
+ * 
+ * If the dictionary is a {@link Checker}, everything in the cache is forgotten
+ * whenever a word is added or a frequency changes, so the cache never returns
+ * out of date suggestions. A cache can be used by several threads at once.
+ * 
+ * @author James Woods
+ */
+public class SuggestionCache {
+
+	/** The dictionary suggestions come from. */
+	private final SpellingDictionary dictionary;
+
+	/** The largest number of strings remembered at once. */
+	private final int capacity;
+
+	/** The suggestions for each remembered string, least recently used first. */
+	private final LinkedHashMap<String, Suggestion[]> entries;
+
+	/** The version of the dictionary the remembered suggestions came from. */
+	private long version;
+
+	/** The number of lookups answered from the cache. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** The number of lookups which had to search the dictionary. */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates an empty cache in front of a dictionary.
+	 * 
+	 * @param dictionary
+	 *            the dictionary suggestions come from
+	 * @param capacity
+	 *            the largest number of strings to remember at once
+	 * @throws IllegalArgumentException
+	 *             if capacity is less than 1
+	 */
+	public SuggestionCache(SpellingDictionary dictionary, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be at least 1.");
+		this.dictionary = dictionary;
+		this.capacity = capacity;
+		this.version = dictionary.version();
+		this.entries = new LinkedHashMap<String, Suggestion[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, Suggestion[]> eldest) {
+				return size() > SuggestionCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the same suggestions as
+	 * {@link SpellingDictionary#getSuggestions(String)}, searching the
+	 * dictionary only if the string is not remembered. Strings which only
+	 * differ in case share the same entry.
+	 * 
+	 * @param string
+	 *            the string for which suggestions will be returned
+	 * @return a list of suggestions sorted by how likely they are to be the
+	 *         intended correct spelling
+	 */
+	public Suggestion[] getSuggestions(String string) {
+		String key = string.toUpperCase();
+		long current = dictionary.version();
+		Suggestion[] suggestions;
+		synchronized (this) {
+			if (current != version) {
+				// The dictionary changed, so nothing remembered can be
+				// trusted.
+				entries.clear();
+				version = current;
+			}
+			suggestions = entries.get(key);
+		}
+		if (suggestions != null) {
+			hits.incrementAndGet();
+			return suggestions.clone();
+		}
+
+		misses.incrementAndGet();
+		suggestions = dictionary.getSuggestions(string);
+		synchronized (this) {
+			// Only remember the suggestions if the dictionary did not change
+			// while they were being found.
+			if (version == current && dictionary.version() == current)
+				entries.put(key, suggestions.clone());
+		}
+		return suggestions;
+	}
+
+	/**
+	 * Returns the number of lookups answered without searching the
+	 * dictionary.
+	 * 
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of lookups which had to search the dictionary.
+	 * 
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of strings currently remembered.
+	 * 
+	 * @return the number of strings
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Forgets every remembered string. The hit and miss counts are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+}
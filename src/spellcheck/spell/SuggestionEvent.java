@@ -0,0 +1,59 @@
+package spellcheck.spell;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A suggestion event is recorded by a flight recording for every query for
+ * suggestions, with the string asked about and the work it took, so that the
+ * strings which make the search blow up can be found in a recording of a
+ * running editor.
+ * 
+ * @author James Woods
+ */
+@Name("vautexedit.Suggestions")
+@Label("Spelling Suggestions")
+@Category({ "VauTexEdit", "Spell Checker" })
+@Description("A search for the words closest to a string")
+final class SuggestionEvent extends jdk.jfr.Event {
+
+	/** The upper case string suggestions were found for. */
+	@Label("Query")
+	String query;
+
+	/** The largest edit distance searched. */
+	@Label("Maximum Distance")
+	int maxDistance;
+
+	/** The number of suggestions asked for. */
+	@Label("Suggestions Wanted")
+	int wanted;
+
+	/** The number of suggestions found. */
+	@Label("Suggestions Found")
+	int found;
+
+	/** Whether a symmetric delete index was used instead of the prefix tree. */
+	@Label("Symmetric Delete")
+	boolean symmetricDelete;
+
+	/** The number of nodes of the prefix tree visited. */
+	@Label("Nodes Visited")
+	long nodesVisited;
+
+	/** The number of candidate words generated. */
+	@Label("Candidates Generated")
+	long candidatesGenerated;
+
+	/** The number of candidate words generated more than once. */
+	@Label("Candidates Deduplicated")
+	long candidatesDeduplicated;
+
+	/** The time spent ranking the suggestions. */
+	@Label("Sort Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long sortTime;
+}
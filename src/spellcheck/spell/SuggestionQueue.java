@@ -0,0 +1,108 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+
+/**
+ * A suggestion queue keeps the best suggestions found by a search, up to a
+ * fixed number of them. Suggestions are simply appended until the queue is
+ * full; from then on they are kept in a heap with the worst suggestion at the
+ * top, so a better suggestion replaces it in logarithmic time.
+ * 
+ * @author James Woods
+ */
+final class SuggestionQueue {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/**
+	 * DOUBLE is used to find the children of an element of the heap.
+	 */
+	private static final int DOUBLE = 2;
+
+	/** The number of elements room is made for at first. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The order of the suggestions, best first. */
+	private final SpellingComparator comparator = new SpellingComparator();
+
+	/** The largest number of suggestions that are kept. */
+	private final int capacity;
+
+	/** The suggestions kept so far. */
+	private Suggestion[] elements;
+
+	/** The number of suggestions kept so far. */
+	private int size;
+
+	/**
+	 * Creates an empty queue.
+	 * 
+	 * @param capacity
+	 *            the largest number of suggestions to keep
+	 */
+	public SuggestionQueue(int capacity) {
+		this.capacity = capacity;
+		this.elements = new Suggestion[Math.min(capacity, INITIAL_CAPACITY)];
+	}
+
+	/**
+	 * Offers a suggestion to the queue. It is kept if the queue is not full
+	 * yet or if it is better than the worst suggestion, which is then
+	 * dropped.
+	 * 
+	 * @param suggestion
+	 *            the suggestion to offer
+	 */
+	public void add(Suggestion suggestion) {
+		if (size < capacity) {
+			if (size == elements.length)
+				elements = Arrays.copyOf(elements,
+						(int) Math.min((long) size * DOUBLE, capacity));
+			elements[size++] = suggestion;
+			// The heap is only needed once suggestions have to be dropped.
+			if (size == capacity)
+				for (int i = size / DOUBLE - ONE; i >= 0; i--)
+					siftDown(i);
+		} else if (comparator.compare(suggestion, elements[0]) < 0) {
+			elements[0] = suggestion;
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Returns the suggestions kept, best first.
+	 * 
+	 * @return the sorted suggestions
+	 */
+	public Suggestion[] toArray() {
+		Suggestion[] suggestions = Arrays.copyOf(elements, size);
+		SpellingDictionary.sorter(size).sort(suggestions);
+		return suggestions;
+	}
+
+	/**
+	 * siftDown is a private helper method that moves an element down the heap
+	 * until both of its children are better than it.
+	 * 
+	 * @param index
+	 *            the position of the element
+	 */
+	private void siftDown(int index) {
+		Suggestion element = elements[index];
+		int child;
+		while ((child = index * DOUBLE + ONE) < size) {
+			if (child + ONE < size
+					&& comparator.compare(elements[child + ONE],
+							elements[child]) > 0)
+				child++;
+			if (comparator.compare(elements[child], element) <= 0)
+				break;
+			elements[index] = elements[child];
+			index = child;
+		}
+		elements[index] = element;
+	}
+}
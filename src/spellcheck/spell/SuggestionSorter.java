@@ -0,0 +1,155 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+
+/**
+ * A suggestion sorter puts suggestions in the order given by
+ * {@link SpellingComparator} without comparing most of them at all. Edit
+ * distances only take a few values and frequencies are plain integers, so the
+ * suggestions are first put in order of frequency by a radix sort, a byte at
+ * a time, and then distributed into one bucket for each edit distance by a
+ * counting sort. Both passes are stable, so the suggestions end up ordered by
+ * distance and then by frequency. Only runs of suggestions with the same
+ * distance and frequency are left to be put in alphabetical order, which is
+ * done with a {@link MergeSorter}.
+ * 
+ * Every pass takes linear time, but each sort needs two arrays as long as the
+ * one being sorted, so for short arrays a comparison sort is faster; see
+ * {@link SpellingDictionary#sorter(int)}. A suggestion sorter keeps nothing
+ * between sorts, so one sorter can be used by several threads at once.
+ * {@link SuggestionBuffer} ranks the results of a search the same way,
+ * directly on its arrays of distances and frequencies.
+ * 
+ * @author James Woods
+ */
+public class SuggestionSorter extends Sorter<Suggestion> {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The number of bits of the frequency sorted by each radix pass. */
+	static final int DIGIT_BITS = 8;
+
+	/** The number of values a digit can have. */
+	static final int RADIX = 1 << DIGIT_BITS;
+
+	/** The mask which takes the lowest digit of a key. */
+	static final int MASK = RADIX - ONE;
+
+	/** The sorter which puts suggestions with equal keys in order. */
+	private final MergeSorter<Suggestion> ties;
+
+	/**
+	 * Creates a new sorter which sorts suggestions by edit distance, then
+	 * frequency, then alphabetical order.
+	 */
+	public SuggestionSorter() {
+		super(new SpellingComparator());
+		ties = new MergeSorter<Suggestion>(comparator);
+	}
+
+	/**
+	 * Rearranges an array of suggestions so that they are in order by edit
+	 * distance, then highest frequency first, then alphabetical order.
+	 * 
+	 * @param array
+	 *            the array to be rearranged
+	 */
+	public void sort(Suggestion[] array) {
+		int length = array.length;
+		if (length <= ONE)
+			return;
+
+		int maxDistance = 0;
+		for (Suggestion suggestion : array) {
+			if (suggestion.editDistance < 0) {
+				// Counting sort only works for distances from 0 up.
+				ties.sort(array);
+				return;
+			}
+			maxDistance = Math.max(maxDistance, suggestion.editDistance);
+		}
+
+		Suggestion[] source = array;
+		Suggestion[] target = new Suggestion[length];
+		int[] keys = new int[length];
+		int[] targetKeys = new int[length];
+		for (int i = 0; i < length; i++)
+			keys[i] = key(array[i].frequency);
+
+		int[] counts = new int[RADIX];
+		for (int shift = 0; shift < Integer.SIZE; shift += DIGIT_BITS) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < length; i++)
+				counts[(keys[i] >>> shift) & MASK]++;
+			// Frequencies are mostly small, so the high digits are usually
+			// the same for every suggestion and the pass can be skipped.
+			if (counts[(keys[0] >>> shift) & MASK] == length)
+				continue;
+			positions(counts);
+			for (int i = 0; i < length; i++) {
+				int position = counts[(keys[i] >>> shift) & MASK]++;
+				target[position] = source[i];
+				targetKeys[position] = keys[i];
+			}
+			Suggestion[] suggestions = source;
+			source = target;
+			target = suggestions;
+			int[] temp = keys;
+			keys = targetKeys;
+			targetKeys = temp;
+		}
+
+		int[] buckets = new int[maxDistance + ONE];
+		for (int i = 0; i < length; i++)
+			buckets[source[i].editDistance]++;
+		positions(buckets);
+		for (int i = 0; i < length; i++)
+			target[buckets[source[i].editDistance]++] = source[i];
+		if (target != array)
+			System.arraycopy(target, 0, array, 0, length);
+
+		int start = 0;
+		for (int i = ONE; i <= length; i++) {
+			if (i == length
+					|| array[i].editDistance != array[start].editDistance
+					|| array[i].frequency != array[start].frequency) {
+				if (i - start > ONE)
+					ties.sort(array, start, i);
+				start = i;
+			}
+		}
+	}
+
+	/**
+	 * key is a helper method that turns a frequency into a key whose unsigned
+	 * order is the reverse of the order of frequencies, so that sorting the
+	 * keys from smallest to largest puts the most frequent words first.
+	 * 
+	 * @param frequency
+	 *            the frequency.
+	 * @return the key.
+	 */
+	static int key(int frequency) {
+		return ~frequency ^ Integer.MIN_VALUE;
+	}
+
+	/**
+	 * positions is a helper method that turns the number of elements with
+	 * each value into the position the first of them goes to.
+	 * 
+	 * @param counts
+	 *            the number of elements with each value, which are replaced
+	 *            by their positions.
+	 */
+	static void positions(int[] counts) {
+		int position = 0;
+		for (int i = 0; i < counts.length; i++) {
+			int count = counts[i];
+			counts[i] = position;
+			position += count;
+		}
+	}
+}
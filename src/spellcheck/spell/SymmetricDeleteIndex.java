@@ -0,0 +1,280 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * A symmetric delete index maps every string that can be made by deleting up
+ * to {@link SpellingDictionary#MAX_EDIT_DISTANCE} letters from a dictionary
+ * word back to the words it came from. Any two strings within that edit distance of each
+ * other share at least one such deletion, so the candidates for a query are
+ * found by generating the deletions of the query and probing the index for
+ * each of them, without walking the prefix tree at all.
+ * 
+ * The index trades memory and build time for query time: every word is stored
+ * under each of its deletions. Words are stored by number, in the order they
+ * were added, so that candidates can be told apart without comparing strings.
+ * 
+ * Copies share as much as they can, so a copy can be made after every word
+ * is added. Numbers are only ever added to the end of the array of words,
+ * and a copy never reads past the words it was made with, so the array is
+ * shared. Once a copy has been made, the map it shares is not changed any
+ * more; new deletions go into a small map of recent ones, which is all a
+ * copy has to copy, and are only merged into a new shared map once there
+ * are enough of them.
+ * 
+ * @author James Woods
+ */
+final class SymmetricDeleteIndex {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The number of words room is made for at first. */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** The most recent deletions always kept apart from a shared map. */
+	private static final int RECENT_SIZE = 4096;
+
+	/**
+	 * RECENT_RATIO is how many times larger than the recent deletions a
+	 * shared map has to be for them to be kept apart from it.
+	 */
+	private static final int RECENT_RATIO = 8;
+
+	/**
+	 * deletions holds the numbers of the words stored under each deletion,
+	 * except for the recent ones. It is never changed while it is shared.
+	 */
+	private HashMap<String, int[]> deletions = new HashMap<String, int[]>();
+
+	/**
+	 * recent holds the numbers of the words added under each deletion since
+	 * {@link #deletions} was first shared.
+	 */
+	private HashMap<String, int[]> recent = new HashMap<String, int[]>();
+
+	/** Whether {@link #deletions} is shared with another index. */
+	private boolean shared;
+
+	/**
+	 * Whether the array of words is shared with the index this one was
+	 * copied from, which may still add words after the ones this one has.
+	 */
+	private boolean borrowed;
+
+	/** The words in the index, by number. */
+	private String[] words = new String[INITIAL_CAPACITY];
+
+	/** The number of words in the index. */
+	private int size;
+
+	/**
+	 * Adds a word to the index. The word should already be upper case and
+	 * should not have been added before.
+	 * 
+	 * @param word
+	 *            the word to add
+	 */
+	public void add(String word) {
+		HashSet<String> variants = new HashSet<String>();
+		delete(word, 0, SpellingDictionary.MAX_EDIT_DISTANCE, variants);
+		if (size == words.length || borrowed) {
+			words = Arrays.copyOf(words, size == words.length ? size * 2
+					: words.length);
+			borrowed = false;
+		}
+		int number = size;
+		words[size++] = word;
+		HashMap<String, int[]> map = shared ? recent : deletions;
+		for (String variant : variants) {
+			int[] numbers = map.get(variant);
+			if (numbers == null) {
+				numbers = new int[] { number };
+			} else {
+				int[] temp = new int[numbers.length + ONE];
+				System.arraycopy(numbers, 0, temp, 0, numbers.length);
+				temp[numbers.length] = number;
+				numbers = temp;
+			}
+			map.put(variant, numbers);
+		}
+		if (recent.size() > Math.max(RECENT_SIZE, deletions.size()
+				/ RECENT_RATIO))
+			merge();
+	}
+
+	/**
+	 * merge is a private helper method that moves the recent deletions into
+	 * a new map of their own, which is not shared until the next copy.
+	 */
+	private void merge() {
+		HashMap<String, int[]> merged = new HashMap<String, int[]>(deletions);
+		for (Map.Entry<String, int[]> entry : recent.entrySet()) {
+			int[] numbers = merged.get(entry.getKey());
+			int[] added = entry.getValue();
+			if (numbers != null) {
+				int[] temp = new int[numbers.length + added.length];
+				System.arraycopy(numbers, 0, temp, 0, numbers.length);
+				System.arraycopy(added, 0, temp, numbers.length, added.length);
+				added = temp;
+			}
+			merged.put(entry.getKey(), added);
+		}
+		deletions = merged;
+		recent.clear();
+		shared = false;
+	}
+
+	/**
+	 * Returns a word in the index.
+	 * 
+	 * @param number
+	 *            the number of the word
+	 * @return the word
+	 */
+	public String word(int number) {
+		return words[number];
+	}
+
+	/**
+	 * Returns an index with the same words as this one, which does not change
+	 * when this one does. Since {@link #add(String)} never changes the arrays
+	 * of numbers it has already stored, only the recent deletions are
+	 * copied; the rest, and the words themselves, are shared.
+	 * 
+	 * @return the copy
+	 */
+	public SymmetricDeleteIndex copy() {
+		SymmetricDeleteIndex copy = new SymmetricDeleteIndex();
+		copy.deletions = deletions;
+		copy.recent.putAll(recent);
+		copy.words = words;
+		copy.size = size;
+		copy.shared = true;
+		copy.borrowed = true;
+		shared = true;
+		return copy;
+	}
+
+	/**
+	 * Collects every word in the index which shares a deletion with the given
+	 * string, keyed by word number, along with its distance from the string.
+	 * This includes all words within the given distance of the string, but
+	 * may also include some which are further away. The distance of each word
+	 * is only worked out the first time it is found, with a
+	 * {@link BitParallelDistance} unless the string is too long for one.
+	 * 
+	 * @param string
+	 *            the upper case string to find candidates for
+	 * @param maxDistance
+	 *            the largest edit distance of a word, which must not be
+	 *            more than {@link SpellingDictionary#MAX_EDIT_DISTANCE}
+	 * @param candidates
+	 *            the collector the candidates are added to
+	 */
+	public void candidates(String string, int maxDistance,
+			CandidateCollector candidates) {
+		HashSet<String> variants = new HashSet<String>();
+		delete(string, 0, maxDistance, variants);
+		BitParallelDistance pattern = null;
+		if (string.length() <= BitParallelDistance.MAX_LENGTH)
+			pattern = new BitParallelDistance(string);
+		boolean anyRecent = !recent.isEmpty();
+		for (String variant : variants) {
+			candidates(string, pattern, deletions.get(variant), candidates);
+			if (anyRecent)
+				candidates(string, pattern, recent.get(variant), candidates);
+		}
+	}
+
+	/**
+	 * candidates is a private helper method that adds the words stored under
+	 * one deletion to a collector, unless they are already in it.
+	 * 
+	 * @param string
+	 *            the upper case string to find candidates for.
+	 * @param pattern
+	 *            the string prepared for measuring distances, or null if it
+	 *            is too long for one.
+	 * @param numbers
+	 *            the numbers of the words, or null for none.
+	 * @param candidates
+	 *            the collector the candidates are added to.
+	 */
+	private void candidates(String string, BitParallelDistance pattern,
+			int[] numbers, CandidateCollector candidates) {
+		if (numbers == null)
+			return;
+		for (int number : numbers) {
+			if (!candidates.contains(number)) {
+				String word = words[number];
+				candidates.add(number, pattern != null ? pattern.distance(word)
+						: distance(string, word));
+			} else {
+				candidates.countDuplicate();
+			}
+		}
+	}
+
+	/**
+	 * delete is a private helper method that adds a string and every string
+	 * that can be made by deleting up to the given number of letters from it
+	 * to a set. Letters are only deleted at or after start so that each
+	 * combination of deletions is generated once.
+	 * 
+	 * @param string
+	 *            the string to delete letters from.
+	 * @param start
+	 *            the first position that may be deleted.
+	 * @param remaining
+	 *            how many more letters may be deleted.
+	 * @param variants
+	 *            the set of strings generated so far.
+	 */
+	private void delete(String string, int start, int remaining,
+			HashSet<String> variants) {
+		variants.add(string);
+		if (remaining == 0)
+			return;
+		for (int i = start; i < string.length(); i++) {
+			delete(string.substring(0, i) + string.substring(i + ONE), i,
+					remaining - ONE, variants);
+		}
+	}
+
+	/**
+	 * Returns the Levenshtein distance between two strings.
+	 * 
+	 * @param first
+	 *            the first string
+	 * @param second
+	 *            the second string
+	 * @return the minimum number of insertions, deletions and substitutions
+	 *         needed to turn one string into the other
+	 */
+	public static int distance(String first, String second) {
+		int[] previous = new int[second.length() + ONE];
+		int[] row = new int[second.length() + ONE];
+		for (int i = 0; i <= second.length(); i++)
+			previous[i] = i;
+		for (int i = 1; i <= first.length(); i++) {
+			row[0] = i;
+			for (int j = 1; j <= second.length(); j++) {
+				int substitute = previous[j - ONE]
+						+ (first.charAt(i - ONE) == second.charAt(j - ONE) ? 0
+								: ONE);
+				row[j] = Math.min(substitute,
+						Math.min(previous[j] + ONE, row[j - ONE] + ONE));
+			}
+			int[] temp = previous;
+			previous = row;
+			row = temp;
+		}
+		return previous[second.length()];
+	}
+}
@@ -0,0 +1,244 @@
+package spellcheck.spell;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A token reader splits the bytes read from a channel into tokens separated
+ * by whitespace, the same way a {@link java.util.Scanner} would, and gives
+ * back only the letters of each token as indexes into
+ * {@link Utilities#LETTERS}. Letters are folded to upper case and every other
+ * character is dropped as the bytes are read, so the result is the same as
+ * calling {@link Utilities#sanitize(String)} on each token, but no strings
+ * are created and the same buffers are used for every token.
+ * 
+ * The bytes are expected to be ASCII or an ASCII-compatible encoding such as
+ * UTF-8 or ISO-8859-1. Bytes outside of ASCII are never letters.
+ * 
+ * @author James Woods
+ */
+final class TokenReader {
+
+	/** The number of bytes read from the channel at a time. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The longest token room is made for at first. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The kind of byte which separates tokens. */
+	private static final byte WHITESPACE = -2;
+
+	/** The kind of byte which is dropped from a token. */
+	private static final byte OTHER = -1;
+
+	/**
+	 * The kind of every byte: {@link #WHITESPACE}, {@link #OTHER}, or the
+	 * index of the letter in {@link Utilities#LETTERS}.
+	 */
+	private static final byte[] KINDS = new byte[256];
+
+	static {
+		for (int b = 0; b < KINDS.length; b++) {
+			if (Character.isWhitespace((char) b) && b < 0x80)
+				KINDS[b] = WHITESPACE;
+			else
+				KINDS[b] = OTHER;
+		}
+		for (int i = 0; i < Utilities.LETTERS.length; i++) {
+			KINDS[Utilities.LETTERS[i]] = (byte) i;
+			KINDS[Character.toLowerCase(Utilities.LETTERS[i])] = (byte) i;
+		}
+	}
+
+	/** The channel tokens are read from. */
+	private final ReadableByteChannel channel;
+
+	/**
+	 * The file tokens are read from when only part of it is read, or null
+	 * when tokens are read from {@link #channel}.
+	 */
+	private final FileChannel file;
+
+	/** The position in {@link #file} of the next byte to read. */
+	private long position;
+
+	/** The position in {@link #file} at which reading stops. */
+	private final long end;
+
+	/** The bytes read from the channel but not yet split into tokens. */
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/** The letters of the current token. */
+	private byte[] letters = new byte[INITIAL_CAPACITY];
+
+	/** The number of letters in the current token. */
+	private int length;
+
+	/** Whether the end of the channel has been reached. */
+	private boolean finished;
+
+	/**
+	 * Creates a token reader which reads from the current position of a
+	 * channel until its end.
+	 * 
+	 * @param channel
+	 *            the channel to read
+	 */
+	public TokenReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		this.file = null;
+		this.end = 0;
+		buffer.flip();
+	}
+
+	/**
+	 * Creates a token reader which reads part of a file. The file's own
+	 * position is not used or changed, so several token readers can read
+	 * different parts of the same file at once. The part should begin and
+	 * end at whitespace (or the ends of the file) so that no token is split.
+	 * 
+	 * @param file
+	 *            the file to read
+	 * @param start
+	 *            the position of the first byte to read
+	 * @param end
+	 *            the position just after the last byte to read
+	 */
+	public TokenReader(FileChannel file, long start, long end) {
+		this.channel = file;
+		this.file = file;
+		this.position = start;
+		this.end = end;
+		buffer.flip();
+	}
+
+	/**
+	 * Finds the first whitespace at or after some position in a file, which
+	 * is a safe place to split the file without splitting a token.
+	 * 
+	 * @param file
+	 *            the file to search
+	 * @param position
+	 *            the position to start searching from
+	 * @param end
+	 *            the position to stop searching at
+	 * @return the position of the first whitespace byte, or end if there is
+	 *         none before it
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public static long align(FileChannel file, long position, long end)
+			throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(INITIAL_CAPACITY);
+		while (position < end) {
+			bytes.clear();
+			if (end - position < bytes.capacity())
+				bytes.limit((int) (end - position));
+			int read = file.read(bytes, position);
+			if (read < 0)
+				return end;
+			for (int i = 0; i < read; i++) {
+				if (KINDS[bytes.get(i) & 0xFF] == WHITESPACE)
+					return position + i;
+			}
+			position += read;
+		}
+		return end;
+	}
+
+	/**
+	 * Moves to the next token which contains at least one letter. Tokens made
+	 * up only of other characters are skipped.
+	 * 
+	 * @return true if there was another token, false at the end of the channel
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 */
+	public boolean next() throws IOException {
+		length = 0;
+		while (true) {
+			if (!buffer.hasRemaining() && !fill())
+				return length > 0;
+			byte[] bytes = buffer.array();
+			int position = buffer.position();
+			int limit = buffer.limit();
+			while (position < limit) {
+				byte kind = KINDS[bytes[position++] & 0xFF];
+				if (kind == WHITESPACE) {
+					if (length > 0) {
+						buffer.position(position);
+						return true;
+					}
+				} else if (kind != OTHER) {
+					if (length == letters.length) {
+						byte[] temp = new byte[length * 2];
+						System.arraycopy(letters, 0, temp, 0, length);
+						letters = temp;
+					}
+					letters[length++] = kind;
+				}
+			}
+			buffer.position(position);
+		}
+	}
+
+	/**
+	 * Returns the letters of the current token. Only the first
+	 * {@link #length()} entries belong to the token, and the array is reused
+	 * by the next call to {@link #next()}.
+	 * 
+	 * @return the indexes of the letters in {@link Utilities#LETTERS}
+	 */
+	public byte[] letters() {
+		return letters;
+	}
+
+	/**
+	 * Returns the number of letters in the current token.
+	 * 
+	 * @return the number of letters
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Returns the current token as an upper case string.
+	 * 
+	 * @return the current token
+	 */
+	public String toString() {
+		char[] word = new char[length];
+		for (int i = 0; i < length; i++)
+			word[i] = Utilities.LETTERS[letters[i]];
+		return new String(word);
+	}
+
+	/**
+	 * fill is a private helper method that reads the next block of bytes from
+	 * the channel into the buffer.
+	 * 
+	 * @return true if any bytes were read, false at the end of the channel.
+	 * @throws IOException
+	 *             if the channel cannot be read.
+	 */
+	private boolean fill() throws IOException {
+		buffer.clear();
+		if (file != null) {
+			if (end - position < buffer.capacity())
+				buffer.limit((int) (end - position));
+			int read = buffer.hasRemaining() ? file.read(buffer, position)
+					: -1;
+			if (read < 0)
+				finished = true;
+			else
+				position += read;
+		} else if (!finished && channel.read(buffer) < 0) {
+			finished = true;
+		}
+		buffer.flip();
+		return buffer.hasRemaining();
+	}
+}
@@ -0,0 +1,219 @@
+package spellcheck.spell;
+
+/**
+ * A trie is the structure a spell checker keeps its dictionary in. It is a
+ * graph of states connected by edges labelled with letters, where the path of
+ * letters from the root state to some state spells a string, and some states
+ * mark the end of a correctly spelled word.
+ * 
+ * States and edges are plain integers so that implementations can keep them
+ * in primitive arrays. Since a state may be reached by more than one path,
+ * words are not numbered by the state they end in but by an id which is built
+ * up one edge at a time with {@link #step(int, int, int)}, starting from 0 at
+ * the root. The frequency of a word is looked up by its id.
+ * 
+ * @author James Woods
+ */
+abstract class Trie {
+
+	/** The value used for a state, edge or id which does not exist. */
+	public static final int NONE = -1;
+
+	/** The id of the root, from which all other ids are built. */
+	public static final int ROOT_ID = 0;
+
+	/**
+	 * Returns the state which represents the empty string.
+	 * 
+	 * @return the root state
+	 */
+	public abstract int root();
+
+	/**
+	 * Returns the first edge leaving a state in alphabetical order.
+	 * 
+	 * @param state
+	 *            the state
+	 * @return the first edge, or {@link #NONE} if the state has no edges
+	 */
+	public abstract int firstEdge(int state);
+
+	/**
+	 * Returns the edge after the given one leaving the same state, in
+	 * alphabetical order.
+	 * 
+	 * @param edge
+	 *            the current edge
+	 * @return the next edge, or {@link #NONE} if this was the last one
+	 */
+	public abstract int nextEdge(int edge);
+
+	/**
+	 * Returns the letter an edge is labelled with.
+	 * 
+	 * @param edge
+	 *            the edge
+	 * @return the index of the letter in {@link Utilities#LETTERS}
+	 */
+	public abstract int letter(int edge);
+
+	/**
+	 * Returns the state an edge leads to.
+	 * 
+	 * @param edge
+	 *            the edge
+	 * @return the state at the end of the edge
+	 */
+	public abstract int target(int edge);
+
+	/**
+	 * Returns the edge leaving a state which is labelled with the given
+	 * letter.
+	 * 
+	 * @param state
+	 *            the state
+	 * @param letter
+	 *            the index of the letter in {@link Utilities#LETTERS}
+	 * @return the edge, or {@link #NONE} if there is no edge for that letter
+	 */
+	public int edge(int state, int letter) {
+		for (int edge = firstEdge(state); edge != NONE; edge = nextEdge(edge)) {
+			if (letter(edge) >= letter)
+				return letter(edge) == letter ? edge : NONE;
+		}
+		return NONE;
+	}
+
+	/**
+	 * Returns the id reached by following an edge.
+	 * 
+	 * @param id
+	 *            the id of the path to the state the edge leaves
+	 * @param state
+	 *            the state the edge leaves
+	 * @param edge
+	 *            the edge
+	 * @return the id of the path extended by the edge
+	 */
+	public abstract int step(int id, int state, int edge);
+
+	/**
+	 * Checks whether a state marks the end of a correctly spelled word.
+	 * 
+	 * @param state
+	 *            the state
+	 * @return true if the path to the state is a word, false otherwise
+	 */
+	public abstract boolean isWord(int state);
+
+	/**
+	 * Returns the frequency of a word.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @return the frequency of the word
+	 */
+	public abstract int getFrequency(int id);
+
+	/**
+	 * Returns the number of letters in the longest word.
+	 * 
+	 * @return the length of the longest word, or 0 if there are no words
+	 */
+	public abstract int longestWord();
+
+	/**
+	 * Increments the frequency count of a word by 1.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 */
+	public void incrementFrequency(int id) {
+		addFrequency(id, 1);
+	}
+
+	/**
+	 * Adds to the frequency count of a word.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @param amount
+	 *            the amount to add
+	 */
+	public abstract void addFrequency(int id, int amount);
+
+	/**
+	 * Returns a trie with the same words and frequencies as this one, which
+	 * does not change when this one does.
+	 * 
+	 * @return the copy
+	 */
+	public abstract Trie copy();
+
+	/**
+	 * Returns a trie with the same words and frequencies as this one, which
+	 * does not change when this one does, given an earlier copy made since
+	 * the last word was added. Only the frequencies have changed since then,
+	 * so the copy may share everything else with the earlier one.
+	 * 
+	 * @param earlier
+	 *            a copy of this trie made since the last word was added
+	 * @return the copy
+	 */
+	public Trie copyFrequencies(Trie earlier) {
+		return copy();
+	}
+
+	/**
+	 * Returns the word with the given id, in upper case.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @return the word
+	 */
+	public abstract String toString(int id);
+
+	/**
+	 * Writes the letter indexes of the word with the given id into an array,
+	 * so that words can be compared without creating strings. If the array is
+	 * too short for the word, the array should be grown to the length
+	 * returned and the word spelled again.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @param letters
+	 *            the array to write the letter indexes to
+	 * @return the length of the word
+	 */
+	public abstract int spell(int id, byte[] letters);
+
+	/**
+	 * Adds a word with a frequency of 1, unless it is already a word.
+	 * 
+	 * @param word
+	 *            the word to add
+	 * @return true if the word was added, false if it was already a word
+	 * @throws UnsupportedOperationException
+	 *             if words cannot be added to this trie
+	 */
+	public boolean addWord(String word) {
+		byte[] letters = new byte[word.length()];
+		for (int i = 0; i < letters.length; i++)
+			letters[i] = (byte) Utilities.indexOf(word.charAt(i));
+		return addWord(letters, letters.length);
+	}
+
+	/**
+	 * Adds a word with a frequency of 1, unless it is already a word.
+	 * 
+	 * @param letters
+	 *            the indexes in {@link Utilities#LETTERS} of the letters of
+	 *            the word
+	 * @param length
+	 *            the number of letters in the word
+	 * @return true if the word was added, false if it was already a word
+	 * @throws UnsupportedOperationException
+	 *             if words cannot be added to this trie
+	 */
+	public abstract boolean addWord(byte[] letters, int length);
+}
@@ -0,0 +1,139 @@
+package spellcheck.spell;
+
+import java.util.Arrays;
+
+/**
+ * A table of word counts keyed by word id, kept in primitive arrays with open
+ * addressing so that counting a word does not create any objects. It is used
+ * to count the words in part of a corpus before the counts are added to the
+ * dictionary all at once.
+ * 
+ * @author James Woods
+ */
+final class WordCounts {
+
+	/**
+	 * ONE is used to represent the number one.
+	 */
+	private static final int ONE = 1;
+
+	/** The number of slots room is made for at first. */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** The value of a slot with no word in it. */
+	private static final int EMPTY = -1;
+
+	/** The word id in each slot, or {@link #EMPTY}. */
+	private int[] ids;
+
+	/** The count in each slot. */
+	private int[] counts;
+
+	/** The number of slots in use. */
+	private int size;
+
+	/** The number of nodes visited while the words were counted. */
+	long nodesVisited;
+
+	/**
+	 * Creates an empty table.
+	 */
+	public WordCounts() {
+		ids = new int[INITIAL_CAPACITY];
+		counts = new int[INITIAL_CAPACITY];
+		Arrays.fill(ids, EMPTY);
+	}
+
+	/**
+	 * Adds to the count of a word.
+	 * 
+	 * @param id
+	 *            the id of the word
+	 * @param amount
+	 *            the amount to add
+	 */
+	public void add(int id, int amount) {
+		int mask = ids.length - ONE;
+		int slot = hash(id) & mask;
+		while (ids[slot] != id) {
+			if (ids[slot] == EMPTY) {
+				ids[slot] = id;
+				if (++size * 2 > ids.length) {
+					// The table got too full, so start over in a bigger one.
+					counts[slot] = amount;
+					grow();
+					return;
+				}
+				break;
+			}
+			slot = (slot + ONE) & mask;
+		}
+		counts[slot] += amount;
+	}
+
+	/**
+	 * Adds all the counts in another table to this one.
+	 * 
+	 * @param other
+	 *            the table to add
+	 */
+	public void addAll(WordCounts other) {
+		for (int slot = 0; slot < other.ids.length; slot++) {
+			if (other.ids[slot] != EMPTY)
+				add(other.ids[slot], other.counts[slot]);
+		}
+		nodesVisited += other.nodesVisited;
+	}
+
+	/**
+	 * Returns the number of different words counted.
+	 * 
+	 * @return the number of words
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds every count in this table to the frequency of its word in a trie.
+	 * 
+	 * @param trie
+	 *            the trie whose frequencies are increased
+	 */
+	public void addTo(Trie trie) {
+		for (int slot = 0; slot < ids.length; slot++) {
+			if (ids[slot] != EMPTY)
+				trie.addFrequency(ids[slot], counts[slot]);
+		}
+	}
+
+	/**
+	 * grow is a private helper method that moves every count into a table
+	 * twice the size.
+	 */
+	private void grow() {
+		int[] oldIds = ids;
+		int[] oldCounts = counts;
+		ids = new int[oldIds.length * 2];
+		counts = new int[oldIds.length * 2];
+		Arrays.fill(ids, EMPTY);
+		size = 0;
+		for (int slot = 0; slot < oldIds.length; slot++) {
+			if (oldIds[slot] != EMPTY)
+				add(oldIds[slot], oldCounts[slot]);
+		}
+	}
+
+	/**
+	 * hash is a private helper method that spreads the bits of a word id so
+	 * that consecutive ids do not fill consecutive slots.
+	 * 
+	 * @param id
+	 *            the word id.
+	 * @return the hash of the id.
+	 */
+	private static int hash(int id) {
+		int h = id * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,177 @@
+package spellcheck.spell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that counting a corpus with fork/join tasks, which split the file
+ * into parts at whitespace, gives exactly the same frequencies as counting
+ * it on one thread.
+ * 
+ * @author James Woods
+ */
+public class CorpusCounterTest {
+
+	/** A word long enough to cross any boundary it is put on. */
+	private static final String LONG_WORD = "PNEUMONOULTRAMICROSCOPICSILICOVOLCANOCONIOSISPNEUMONOULTRAMICROSCOPICSILICOVOLCANOCONIOSIS";
+
+	/** The characters put between tokens. */
+	private static final String[] SEPARATORS = { " ", " ", " ", "\n", "\t",
+			"  ", "\r\n" };
+
+	@Test
+	public void countsTheSameInParallel() throws IOException {
+		Random random = new Random(7);
+		List<String> words = words(random);
+		Checker checker = new Checker();
+		for (String word : words)
+			checker.addWord(word);
+		Path corpus = corpus(words, random);
+
+		FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			assertTrue(size > 2 * CorpusCounter.SPLIT_SIZE,
+					"The corpus is too small to be split.");
+
+			Trie trie = checker.trie();
+			WordCounts sequential = new CorpusCounter(trie, channel, 0, size)
+					.count();
+			ForkJoinPool pool = new ForkJoinPool(4);
+			WordCounts parallel;
+			try {
+				parallel = pool.invoke(new CorpusCounter(trie, channel, 0,
+						size));
+			} finally {
+				pool.shutdown();
+			}
+
+			assertEquals(sequential.size(), parallel.size());
+			assertEquals(sequential.nodesVisited, parallel.nodesVisited);
+			Trie counted = trie.copy();
+			sequential.addTo(counted);
+			Trie countedInParallel = trie.copy();
+			parallel.addTo(countedInParallel);
+			for (String word : words) {
+				int id = checker.find(trie, word);
+				assertEquals(counted.getFrequency(id),
+						countedInParallel.getFrequency(id), word);
+			}
+			assertTrue(counted.getFrequency(checker.find(trie, LONG_WORD)) > 1,
+					"The words across the boundaries were not counted.");
+		} finally {
+			channel.close();
+			Files.delete(corpus);
+		}
+	}
+
+	@Test
+	public void buildsTheSameDictionaryInParallel() throws IOException {
+		Random random = new Random(11);
+		List<String> words = words(random);
+		Path dictionary = Files.createTempFile("dictionary", ".txt");
+		Path corpus = corpus(words, random);
+		try {
+			Files.write(dictionary, words, StandardCharsets.US_ASCII);
+			Checker sequential = new Checker.Builder()
+					.dictionary(dictionary.toFile()).corpus(corpus.toFile())
+					.build();
+			Checker parallel = new Checker.Builder()
+					.dictionary(dictionary.toFile()).corpus(corpus.toFile())
+					.parallelism(4).build();
+
+			for (String word : words)
+				assertEquals(sequential.getFrequency(word),
+						parallel.getFrequency(word), word);
+		} finally {
+			Files.delete(dictionary);
+			Files.delete(corpus);
+		}
+	}
+
+	/**
+	 * words is a private helper method that makes a dictionary of random
+	 * words, including {@link #LONG_WORD}.
+	 * 
+	 * @param random
+	 *            the source of the letters.
+	 * @return the words.
+	 */
+	private static List<String> words(Random random) {
+		List<String> words = new ArrayList<String>();
+		words.add(LONG_WORD);
+		for (int i = 0; i < 2000; i++) {
+			char[] word = new char[1 + random.nextInt(12)];
+			for (int j = 0; j < word.length; j++)
+				word[j] = Utilities.LETTERS[random.nextInt(26)];
+			words.add(new String(word));
+		}
+		return words;
+	}
+
+	/**
+	 * corpus is a private helper method that writes a corpus of a little more
+	 * than three times {@link CorpusCounter#SPLIT_SIZE} bytes, made of
+	 * dictionary words in mixed case, strings which are not words, and
+	 * punctuation, separated by different kinds of whitespace. The long word
+	 * is put across the middle of the file and across every position where
+	 * a part of it might be split, so tokens cross the boundaries.
+	 * 
+	 * @param words
+	 *            the dictionary words.
+	 * @param random
+	 *            the source of the tokens.
+	 * @return the file, which the caller deletes.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	private static Path corpus(List<String> words, Random random)
+			throws IOException {
+		int size = (int) (3 * CorpusCounter.SPLIT_SIZE + 12345);
+		StringBuilder text = new StringBuilder(size + LONG_WORD.length());
+		while (text.length() < size) {
+			String token = words.get(random.nextInt(words.size()));
+			switch (random.nextInt(5)) {
+			case 0:
+				token = token.toLowerCase();
+				break;
+			case 1:
+				token = token + "XQ";
+				break;
+			case 2:
+				token = "\"" + token + ",";
+				break;
+			default:
+				break;
+			}
+			text.append(token);
+			text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+		}
+
+		// Every part is split at its middle, so put the long word across
+		// every sixteenth of the file.
+		for (int i = 1; i < 16; i++) {
+			int middle = text.length() * i / 16;
+			int start = middle - LONG_WORD.length() / 2;
+			text.replace(start - 1, start + LONG_WORD.length() + 1, " "
+					+ LONG_WORD + " ");
+		}
+
+		Path corpus = Files.createTempFile("corpus", ".txt");
+		Files.write(corpus, text.toString().getBytes(StandardCharsets.US_ASCII));
+		return corpus;
+	}
+}
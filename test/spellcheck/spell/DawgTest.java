@@ -0,0 +1,121 @@
+package spellcheck.spell;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that minimizing a prefix tree into a {@link Dawg} keeps every word
+ * and its frequency, and numbers the words in alphabetical order.
+ * 
+ * @author James Woods
+ */
+public class DawgTest {
+
+	/** Words which share their endings, so minimizing merges many states. */
+	private static final String[] STEMS = { "BAK", "BREAK", "CALL", "COOK",
+			"FALL", "JUMP", "LOOK", "PLAY", "READ", "WALK" };
+
+	/** The endings put on each stem. */
+	private static final String[] ENDINGS = { "", "S", "ED", "ER", "ERS",
+			"ING", "INGS" };
+
+	@Test
+	public void numbersWordsInAlphabeticalOrder() {
+		TreeMap<String, Integer> words = words(new Random(4));
+		Dawg dawg = new Dawg(trie(words));
+
+		int rank = 0;
+		for (String word : words.keySet()) {
+			assertEquals(rank, id(dawg, word), word);
+			assertEquals(word, dawg.toString(rank));
+			rank++;
+		}
+	}
+
+	@Test
+	public void keepsFrequenciesWhenMinimizing() {
+		TreeMap<String, Integer> words = words(new Random(4));
+		CompactTrie trie = trie(words);
+		Dawg dawg = new Dawg(trie);
+
+		assertTrue(dawg.size() < trie.size(), "No states were merged.");
+		for (String word : words.keySet())
+			assertEquals(words.get(word).intValue(),
+					dawg.getFrequency(id(dawg, word)), word);
+		assertEquals(Trie.NONE, id(dawg, "WALKE"));
+		assertEquals(Trie.NONE, id(dawg, "WALKINGSS"));
+	}
+
+	@Test
+	public void keepsFrequenciesOfCopiesApart() {
+		TreeMap<String, Integer> words = words(new Random(4));
+		Dawg dawg = new Dawg(trie(words));
+		Dawg copy = dawg.copy();
+
+		int id = id(dawg, "LOOKING");
+		copy.incrementFrequency(id);
+		assertEquals(words.get("LOOKING").intValue(), dawg.getFrequency(id));
+		assertEquals(words.get("LOOKING") + 1, copy.getFrequency(id));
+	}
+
+	/**
+	 * words is a private helper method that puts every ending on every stem
+	 * and gives each word a random frequency.
+	 * 
+	 * @param random
+	 *            the source of the frequencies.
+	 * @return the frequency of each word, in alphabetical order.
+	 */
+	private static TreeMap<String, Integer> words(Random random) {
+		TreeMap<String, Integer> words = new TreeMap<String, Integer>();
+		for (String stem : STEMS) {
+			for (String ending : ENDINGS)
+				words.put(stem + ending, 1 + random.nextInt(1000));
+		}
+		return words;
+	}
+
+	/**
+	 * trie is a private helper method that builds a prefix tree of words
+	 * with their frequencies.
+	 * 
+	 * @param words
+	 *            the frequency of each word.
+	 * @return the prefix tree.
+	 */
+	private static CompactTrie trie(TreeMap<String, Integer> words) {
+		CompactTrie trie = new CompactTrie();
+		for (String word : words.keySet())
+			trie.addWord(word);
+		for (String word : words.keySet())
+			trie.addFrequency(id(trie, word), words.get(word) - 1);
+		return trie;
+	}
+
+	/**
+	 * id is a private helper method that follows a word down a prefix tree.
+	 * 
+	 * @param trie
+	 *            the prefix tree.
+	 * @param word
+	 *            the upper case word.
+	 * @return the id of the word, or {@link Trie#NONE} if it is not a word.
+	 */
+	private static int id(Trie trie, String word) {
+		int state = trie.root();
+		int id = Trie.ROOT_ID;
+		for (int i = 0; i < word.length(); i++) {
+			int edge = trie.edge(state, Utilities.indexOf(word.charAt(i)));
+			if (edge == Trie.NONE)
+				return Trie.NONE;
+			id = trie.step(id, state, edge);
+			state = trie.target(edge);
+		}
+		return trie.isWord(state) ? id : Trie.NONE;
+	}
+}
@@ -0,0 +1,114 @@
+package spellcheck.spell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a {@link ParallelSorter} puts an array in the same order as
+ * sorting it on one thread, keeps equal elements in the order they were
+ * given, and is the sorter used to rank the suggestions of a whole batch.
+ * 
+ * @author James Woods
+ */
+public class ParallelSorterTest {
+
+	/** The number of elements sorted, enough to be split into many chunks. */
+	private static final int SIZE = 20 * ParallelSorter.MIN_CHUNK + 123;
+
+	@Test
+	public void sortsStablyInParallel() {
+		Random random = new Random(3);
+		Integer[] array = new Integer[SIZE];
+		for (int i = 0; i < SIZE; i++)
+			array[i] = random.nextInt(1000) * SIZE + i;
+		// Only the thousands are compared, so many elements tie, and the
+		// order of their positions shows whether the sort was stable.
+		Comparator<Integer> thousands = (a, b) -> Integer.compare(a / SIZE, b
+				/ SIZE);
+		Integer[] expected = array.clone();
+		Arrays.sort(expected);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new ParallelSorter<Integer>(new MergeSorter<Integer>(thousands),
+					pool).sort(array);
+		} finally {
+			pool.shutdown();
+		}
+		assertArrayEquals(expected, array);
+	}
+
+	@Test
+	public void sortsOnlyTheRangeGiven() {
+		Random random = new Random(5);
+		Integer[] array = new Integer[SIZE];
+		for (int i = 0; i < SIZE; i++)
+			array[i] = random.nextInt();
+		int from = 1000;
+		int to = SIZE - 1000;
+		Integer[] expected = array.clone();
+		Arrays.sort(expected, from, to);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new ParallelSorter<Integer>(new HeapSorter<Integer>(
+					Comparator.naturalOrder()), pool).sort(array, from, to);
+		} finally {
+			pool.shutdown();
+		}
+		assertArrayEquals(expected, array);
+	}
+
+	@Test
+	public void sortsLongReportsLikeOneThread() {
+		Random random = new Random(9);
+		Suggestion[] array = new Suggestion[SpellingDictionary.PARALLEL_SORT_SIZE];
+		for (int i = 0; i < array.length; i++)
+			array[i] = new Suggestion(Integer.toString(random.nextInt(50000),
+					Character.MAX_RADIX), random.nextInt(3),
+					1000 / (1 + random.nextInt(1000)));
+		Suggestion[] expected = array.clone();
+		new SuggestionSorter().sort(expected);
+
+		Sorter<Suggestion> sorter = SpellingDictionary.sorter(array.length);
+		assertSame(ParallelSorter.class, sorter.getClass());
+		sorter.sort(array);
+		assertArrayEquals(expected, array);
+	}
+
+	@Test
+	public void ranksTheSuggestionsOfABatch() throws IOException {
+		Random random = new Random(13);
+		Checker checker = new Checker.Builder().parallelism(4).build();
+		List<String> strings = new ArrayList<String>();
+		for (int i = 0; i < 2000; i++) {
+			char[] word = new char[3 + random.nextInt(4)];
+			for (int j = 0; j < word.length; j++)
+				word[j] = Utilities.LETTERS[random.nextInt(8)];
+			String string = new String(word);
+			if (i % 2 == 0)
+				checker.addWord(string);
+			strings.add(string);
+		}
+
+		List<Suggestion> all = new ArrayList<Suggestion>();
+		for (Map.Entry<String, Suggestion[]> entry : checker.checkAll(strings)
+				.entrySet())
+			all.addAll(Arrays.asList(entry.getValue()));
+		Suggestion[] expected = all.toArray(new Suggestion[0]);
+		new MergeSorter<Suggestion>(new SpellingComparator()).sort(expected);
+
+		assertArrayEquals(expected, checker.rankAll(strings));
+	}
+}
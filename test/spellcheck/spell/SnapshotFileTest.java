@@ -0,0 +1,177 @@
+package spellcheck.spell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a dictionary written by {@link SpellingDictionary#save(Path)}
+ * is read back by {@link Checker#load(Path)} with the same words and
+ * frequencies, and that files which were not written that way are refused.
+ * 
+ * @author James Woods
+ */
+public class SnapshotFileTest {
+
+	/** The position of the format version in the header of a file. */
+	private static final int VERSION_POSITION = 4;
+
+	@Test
+	public void loadsTheWordsAndFrequenciesSaved() throws IOException {
+		List<String> words = new ArrayList<String>();
+		Checker checker = checker(words);
+		Path file = temporaryFile();
+		checker.save(file);
+
+		Checker loaded = Checker.load(file);
+		for (String word : words) {
+			assertTrue(loaded.isWord(word), word);
+			assertEquals(checker.getFrequency(word), loaded.getFrequency(word),
+					word);
+		}
+		assertFalse(loaded.isWord("XYZZY"));
+		assertArrayEquals(checker.getSuggestions("SPELING"),
+				loaded.getSuggestions("SPELING"));
+		assertThrows(UnsupportedOperationException.class, () -> loaded
+				.addWord("NEWWORD"));
+	}
+
+	@Test
+	public void savesFrequenciesChangedAfterLoading() throws IOException {
+		List<String> words = new ArrayList<String>();
+		Checker checker = checker(words);
+		Path file = temporaryFile();
+		checker.save(file);
+
+		Checker loaded = Checker.load(file);
+		String word = words.get(0);
+		loaded.increaseFrequency(word);
+		Path again = temporaryFile();
+		loaded.save(again);
+
+		Checker reloaded = Checker.load(again);
+		assertEquals(checker.getFrequency(word) + 1,
+				reloaded.getFrequency(word));
+		// The first file is only mapped, so it does not see the change.
+		assertEquals(checker.getFrequency(word), Checker.load(file)
+				.getFrequency(word));
+	}
+
+	@Test
+	public void refusesAFileWithTheWrongMagicNumber() throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(saved());
+		bytes.putInt(0, 0x12345678);
+
+		assertThrows(IOException.class, () -> Checker.load(write(bytes
+				.array())));
+	}
+
+	@Test
+	public void refusesAFileOfAnotherVersion() throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(saved());
+		bytes.putInt(VERSION_POSITION, 99);
+
+		assertThrows(IOException.class, () -> Checker.load(write(bytes
+				.array())));
+	}
+
+	@Test
+	public void refusesATruncatedFile() throws IOException {
+		byte[] bytes = saved();
+		for (int length : new int[] { bytes.length - 1, bytes.length / 2, 10,
+				0 }) {
+			Path file = write(Arrays.copyOf(bytes, length));
+			assertThrows(IOException.class, () -> Checker.load(file),
+					"Loaded " + length + " bytes.");
+		}
+	}
+
+	/**
+	 * checker is a private helper method that makes a spell checker of random
+	 * words with random frequencies.
+	 * 
+	 * @param words
+	 *            the list the words are added to.
+	 * @return the spell checker.
+	 */
+	private static Checker checker(List<String> words) {
+		Random random = new Random(5);
+		Checker checker = new Checker();
+		for (String word : new String[] { "SPELLING", "SPELL", "SPEEDING",
+				"SPENDING", "PELTING" }) {
+			checker.addWord(word);
+			words.add(word);
+		}
+		for (int i = 0; i < 500; i++) {
+			char[] word = new char[1 + random.nextInt(8)];
+			for (int j = 0; j < word.length; j++)
+				word[j] = Utilities.LETTERS[random.nextInt(26)];
+			String string = new String(word);
+			if (!checker.isWord(string)) {
+				checker.addWord(string);
+				words.add(string);
+			}
+		}
+		for (int i = 0; i < 2000; i++)
+			checker.increaseFrequency(words.get(random.nextInt(words.size())));
+		return checker;
+	}
+
+	/**
+	 * temporaryFile is a private helper method that makes an empty file which
+	 * is deleted when the tests finish. Mapped files cannot be deleted on
+	 * every platform while they are still mapped, so it is not deleted any
+	 * sooner.
+	 * 
+	 * @return the file.
+	 * @throws IOException
+	 *             if the file cannot be made.
+	 */
+	private static Path temporaryFile() throws IOException {
+		Path file = Files.createTempFile("dictionary", ".dawg");
+		file.toFile().deleteOnExit();
+		return file;
+	}
+
+	/**
+	 * saved is a private helper method that saves a dictionary and reads
+	 * back the bytes of the file.
+	 * 
+	 * @return the bytes of the file.
+	 * @throws IOException
+	 *             if the file cannot be written or read.
+	 */
+	private static byte[] saved() throws IOException {
+		Path file = temporaryFile();
+		checker(new ArrayList<String>()).save(file);
+		return Files.readAllBytes(file);
+	}
+
+	/**
+	 * write is a private helper method that writes bytes to a new file.
+	 * 
+	 * @param bytes
+	 *            the bytes to write.
+	 * @return the file.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	private static Path write(byte[] bytes) throws IOException {
+		Path file = temporaryFile();
+		Files.write(file, bytes);
+		return file;
+	}
+}
@@ -0,0 +1,105 @@
+package spellcheck.spell;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link SuggestionBuffer#rank(int)} puts the results of a search
+ * in the same order as sorting them with a {@link SpellingComparator}, both
+ * for a few suggestions, which are ranked with a heap, and for many, which
+ * are ranked by distance and frequency with counting and radix sorts.
+ * 
+ * @author James Woods
+ */
+public class SuggestionBufferTest {
+
+	/** The letters the words of the dictionary are made of. */
+	private static final int LETTERS = 5;
+
+	/** The numbers of suggestions asked for. */
+	private static final int[] WANTED = { 1, 5, 20, 60, 1000 };
+
+	@Test
+	public void ranksManySuggestionsFromThePrefixTree() throws IOException {
+		checkRanking(false);
+	}
+
+	@Test
+	public void ranksManySuggestionsFromTheDeleteIndex() throws IOException {
+		checkRanking(true);
+	}
+
+	/**
+	 * checkRanking is a private helper method that compares the suggestions
+	 * for random strings with every word of a dictionary of short words
+	 * within {@link SpellingDictionary#MAX_EDIT_DISTANCE}, sorted.
+	 * 
+	 * @param symmetricDelete
+	 *            whether suggestions come from a symmetric delete index.
+	 * @throws IOException
+	 *             never, since no files are read.
+	 */
+	private void checkRanking(boolean symmetricDelete) throws IOException {
+		Random random = new Random(7);
+		Checker checker = new Checker.Builder().symmetricDelete(
+				symmetricDelete).build();
+		List<String> words = new ArrayList<String>();
+		for (int i = 0; i < 3000; i++) {
+			String word = randomWord(random);
+			if (!checker.isWord(word))
+				words.add(word);
+			checker.addWord(word);
+			// Only a few different frequencies, so many suggestions tie.
+			for (int j = random.nextInt(3); j > 0; j--)
+				checker.increaseFrequency(word);
+		}
+
+		SuggestionBuffer buffer = new SuggestionBuffer();
+		boolean radix = false;
+		for (int i = 0; i < 200; i++) {
+			String string = randomWord(random);
+			int k = WANTED[random.nextInt(WANTED.length)];
+
+			List<Suggestion> all = new ArrayList<Suggestion>();
+			for (String word : words) {
+				int distance = SymmetricDeleteIndex.distance(string, word);
+				if (distance <= SpellingDictionary.MAX_EDIT_DISTANCE)
+					all.add(new Suggestion(word, distance, checker
+							.getFrequency(word)));
+			}
+			Suggestion[] expected = all.toArray(new Suggestion[all.size()]);
+			Arrays.sort(expected, new SpellingComparator());
+			expected = Arrays.copyOf(expected, Math.min(k, expected.length));
+			radix |= all.size() >= SpellingDictionary.RADIX_SORT_SIZE;
+
+			checker.getSuggestions(string, k, buffer);
+			assertArrayEquals(expected, buffer.toArray(), string);
+			assertArrayEquals(expected, checker.getSuggestions(string, k),
+					string);
+		}
+		assertTrue(radix, "No search found enough suggestions to radix sort.");
+	}
+
+	/**
+	 * randomWord is a private helper method that makes a word of two to six
+	 * of the first few letters.
+	 * 
+	 * @param random
+	 *            the source of the letters.
+	 * @return the word.
+	 */
+	private static String randomWord(Random random) {
+		char[] word = new char[2 + random.nextInt(5)];
+		for (int i = 0; i < word.length; i++)
+			word[i] = Utilities.LETTERS[random.nextInt(LETTERS)];
+		return new String(word);
+	}
+}